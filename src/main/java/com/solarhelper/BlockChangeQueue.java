@@ -0,0 +1,87 @@
+package com.solarhelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands client block changes from the render thread to a planner that keeps cached
+ * search data on the PathPlanner worker thread.
+ *
+ * Every change gets a sequence number from a counter shared by all queues. Stamping a
+ * snapshot with currentSeq() lets the consumer tell which changes the snapshot already
+ * contains and which happened after it — the latter have to be applied again once the
+ * search that used the snapshot is done, or data built from it would go stale.
+ */
+final class BlockChangeQueue {
+
+    private static final AtomicLong SEQ = new AtomicLong();
+
+    /** A changed block, or a whole chunk column (column = true, y unused). */
+    record Change(long seq, int x, int y, int z, boolean column) {}
+
+    private final int capacity;
+    private final ConcurrentLinkedQueue<Change> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    // Set instead of queueing once too many changes pile up (or the world changes)
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+
+    BlockChangeQueue(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /** Sequence number of the latest change posted to any queue; stamp snapshots with this. */
+    static long currentSeq() {
+        return SEQ.get();
+    }
+
+    /** Called on the render thread for each changed block. */
+    void postBlock(int x, int y, int z) {
+        post(x, y, z, false);
+    }
+
+    /** Called on the render thread when a chunk column is loaded or unloaded. */
+    void postColumn(int cx, int cz) {
+        post(cx, 0, cz, true);
+    }
+
+    /** Everything the consumer has cached is invalid (world change). */
+    void postAll() {
+        SEQ.incrementAndGet();
+        overflowed.set(true);
+    }
+
+    private void post(int x, int y, int z, boolean column) {
+        long seq = SEQ.incrementAndGet();
+        if (overflowed.get()) return; // consumer drops everything anyway
+        // Too many pending changes (nobody consuming for a while) — drop everything instead
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            overflowed.set(true);
+            return;
+        }
+        queue.add(new Change(seq, x, y, z, column));
+    }
+
+    /**
+     * Worker side: true if the consumer must drop all its cached data. Since this can't be
+     * ordered against a snapshot, a consumer that sees true should drop again after its search.
+     */
+    boolean takeOverflow() {
+        return overflowed.getAndSet(false);
+    }
+
+    /** Worker side: removes and returns every queued change. */
+    List<Change> drain() {
+        List<Change> changes = new ArrayList<>();
+        Change c;
+        while ((c = queue.poll()) != null) {
+            size.decrementAndGet();
+            changes.add(c);
+        }
+        return changes;
+    }
+}
@@ -1,11 +1,18 @@
 package com.solarhelper;
 
-import net.minecraft.block.BlockState;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.registry.tag.FluidTags;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.chunk.ChunkSection;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 
 /**
  * Physics-based dropper solver.
@@ -13,8 +20,12 @@ import java.util.*;
  * Each game tick, computes the best horizontal inputs to steer the player
  * toward the center of the water landing zone while avoiding obstacles.
  *
- * Uses a beam search: tries all 9 input combos (forward ∈ {-1,0,1} × sideways ∈ {-1,0,1})
- * simulated LOOKAHEAD ticks ahead, scores each by collision and landing accuracy.
+ * First tries holding one yaw with forward pressed — toward the water, then dodging in
+ * widening rings — simulated LOOKAHEAD ticks ahead and scored by collision and landing
+ * accuracy. When no single yaw lands in the water, a receding-horizon beam search
+ * (plan()) picks a sequence of inputs (yaw × forward or coast, switching every
+ * SEGMENT_TICKS), which gets through shafts that need a turn mid-air; only its first
+ * input is used before the next solve.
  */
 public class DropperSolver {
 
@@ -50,61 +61,163 @@ public class DropperSolver {
 
     // ── Physics simulation ──────────────────────────────────────────────────
 
+    // HORIZONTAL_DRAG^t and VERTICAL_DRAG^t for t = 0..LOOKAHEAD, per axis (x, y, z)
+    private static final double[] H_POW = powers(HORIZONTAL_DRAG);
+    private static final double[] V_POW = powers(VERTICAL_DRAG);
+    private static final double[][] AXIS_POW = {H_POW, V_POW, H_POW};
+
+    // Extent of the player's box below and above its position on each axis (x, y, z)
+    private static final double[] BOX_BELOW = {PLAYER_HALF_W, 0, PLAYER_HALF_W};
+    private static final double[] BOX_ABOVE = {PLAYER_HALF_W, PLAYER_HEIGHT - 0.001, PLAYER_HALF_W};
+
+    private static double[] powers(double base) {
+        double[] p = new double[LOOKAHEAD + 1];
+        p[0] = 1;
+        for (int t = 1; t <= LOOKAHEAD; t++) p[t] = p[t - 1] * base;
+        return p;
+    }
+
     /**
-     * Simulates one tick of freefall physics.
+     * A freefall with constant input, in closed form.
      * forward ∈ {-1, 0, 1}, sideways ∈ {-1, 0, 1} (positive sideways = left).
      *
-     * Minecraft horizontal movement in air:
-     *   X += (sideways * cos(yaw) - forward * sin(yaw)) * AIR_ACCEL
-     *   Z += (forward  * cos(yaw) + sideways * sin(yaw)) * AIR_ACCEL
-     * Then multiply by HORIZONTAL_DRAG.
+     * Minecraft horizontal movement in air, per tick:
+     *   X += (sideways * cos(yaw) - forward * sin(yaw)) * AIR_ACCEL / n
+     *   Z += (forward  * cos(yaw) + sideways * sin(yaw)) * AIR_ACCEL / n
+     * where n = √2 when both keys are held (the game normalises input longer than 1),
+     * then multiplied by HORIZONTAL_DRAG; vertically, v' = (v − GRAVITY) · VERTICAL_DRAG.
+     *
+     * Every axis follows v' = (v + a)·d, so v_t = v∞ + (v0 − v∞)·d^t with v∞ = a·d / (1 − d),
+     * and summing that geometric series gives p_t = p0 + v∞·t + (v0 − v∞)·d·(1 − d^t) / (1 − d):
+     * the position at any tick is a table lookup and a few multiplications. Each axis's
+     * velocity changes sign at most once, so the position is monotone either side of that
+     * turning tick, and the next tick at which the player's box moves into a different set
+     * of blocks is found by binary search on those pieces instead of by stepping.
      */
-    public static SimState simulateTick(SimState s, float yaw, int forward, int sideways) {
-        double yawRad = Math.toRadians(yaw);
-        double sinYaw = Math.sin(yawRad);
-        double cosYaw = Math.cos(yawRad);
+    static final class Trajectory {
+        private final double[] start = new double[3];
+        private final double[] terminal = new double[3]; // v∞
+        private final double[] excess = new double[3];   // v0 − v∞
+        private final double[] decay = new double[3];    // (v0 − v∞)·d / (1 − d)
+        private final int[] turn = new int[3];           // last tick the velocity keeps its starting sign
+
+        Trajectory(SimState s, float yaw, int forward, int sideways) {
+            double yawRad = Math.toRadians(yaw);
+            double sinYaw = Math.sin(yawRad);
+            double cosYaw = Math.cos(yawRad);
+            double norm = (forward != 0 && sideways != 0) ? Math.sqrt(2) : 1;
+            double ax = (sideways * cosYaw - forward * sinYaw) * AIR_ACCEL / norm;
+            double az = (forward  * cosYaw + sideways * sinYaw) * AIR_ACCEL / norm;
+            axis(0, s.x, s.vx, ax, HORIZONTAL_DRAG);
+            axis(1, s.y, s.vy, -GRAVITY, VERTICAL_DRAG);
+            axis(2, s.z, s.vz, az, HORIZONTAL_DRAG);
+        }
+
+        private void axis(int i, double p0, double v0, double accel, double drag) {
+            double vInf = accel * drag / (1 - drag);
+            start[i] = p0;
+            terminal[i] = vInf;
+            excess[i] = v0 - vInf;
+            decay[i] = (v0 - vInf) * drag / (1 - drag);
+            // v_t changes sign where d^t = −v∞ / (v0 − v∞), if that lies in (0, 1)
+            double ratio = v0 == vInf ? 0 : -vInf / (v0 - vInf);
+            turn[i] = ratio > 0 && ratio < 1
+                ? (int) Math.min(LOOKAHEAD, Math.floor(Math.log(ratio) / Math.log(drag)))
+                : LOOKAHEAD;
+        }
+
+        /** Position on axis i (0 = x, 1 = y, 2 = z) after t ticks. */
+        double at(int i, int t) {
+            return start[i] + terminal[i] * t + decay[i] * (1 - AXIS_POW[i][t]);
+        }
+
+        /** Position and velocity after t ticks. */
+        SimState state(int t) {
+            return new SimState(x(t), y(t), z(t),
+                terminal[0] + excess[0] * AXIS_POW[0][t],
+                terminal[1] + excess[1] * AXIS_POW[1][t],
+                terminal[2] + excess[2] * AXIS_POW[2][t]);
+        }
 
-        double inputX = (sideways * cosYaw - forward * sinYaw) * AIR_ACCEL;
-        double inputZ = (forward  * cosYaw + sideways * sinYaw) * AIR_ACCEL;
+        double x(int t) { return at(0, t); }
+        double y(int t) { return at(1, t); }
+        double z(int t) { return at(2, t); }
+
+        /**
+         * The first tick after t at which the blocks the player's box overlaps, or the
+         * block its feet are in, differ from those at tick t; LOOKAHEAD + 1 if that doesn't
+         * happen within the lookahead.
+         */
+        int nextCrossing(int t) {
+            int next = LOOKAHEAD + 1;
+            for (int i = 0; i < 3; i++) next = Math.min(next, firstExit(i, t));
+            return next;
+        }
 
-        double newVx = (s.vx + inputX) * HORIZONTAL_DRAG;
-        double newVy = (s.vy - GRAVITY) * VERTICAL_DRAG;
-        double newVz = (s.vz + inputZ) * HORIZONTAL_DRAG;
+        /** First tick after t at which axis i leaves the range that keeps its blocks as at t. */
+        private int firstExit(int i, int t) {
+            double p = at(i, t), below = BOX_BELOW[i], above = BOX_ABOVE[i];
+            int lo = (int) Math.floor(p - below), mid = (int) Math.floor(p), hi = (int) Math.floor(p + above);
+            double min = Math.max(mid, Math.max(lo + below, hi - above));
+            double max = Math.min(mid + 1, Math.min(lo + 1 + below, hi + 1 - above));
+
+            // Monotone on (t, turn] and on (turn, LOOKAHEAD]: once out of range, out for the rest of the piece
+            int[] ends = {turn[i], LOOKAHEAD};
+            int from = t + 1;
+            for (int end : ends) {
+                if (end < from) continue;
+                if (inRange(i, end, min, max)) {
+                    from = end + 1;
+                    continue;
+                }
+                int a = from, b = end;
+                while (a < b) {
+                    int m = (a + b) >>> 1;
+                    if (inRange(i, m, min, max)) a = m + 1;
+                    else b = m;
+                }
+                return a;
+            }
+            return LOOKAHEAD + 1;
+        }
 
-        return new SimState(s.x + newVx, s.y + newVy, s.z + newVz, newVx, newVy, newVz);
+        private boolean inRange(int i, int t, double min, double max) {
+            double p = at(i, t);
+            return p >= min && p < max;
+        }
     }
 
     // ── World queries ───────────────────────────────────────────────────────
 
-    /**
-     * True if the player AABB at this SimState overlaps any solid non-water block.
-     */
-    public static boolean collidesWithSolid(ClientWorld world, SimState s) {
-        int x0 = (int) Math.floor(s.x - PLAYER_HALF_W);
-        int x1 = (int) Math.floor(s.x + PLAYER_HALF_W);
-        int y0 = (int) Math.floor(s.y);
-        int y1 = (int) Math.floor(s.y + PLAYER_HEIGHT - 0.001);
-        int z0 = (int) Math.floor(s.z - PLAYER_HALF_W);
-        int z1 = (int) Math.floor(s.z + PLAYER_HALF_W);
+    /** The block tests a rollout makes; ShaftMap provides them. */
+    interface ShaftView {
+        /** Solid for the player, and not water. */
+        boolean isSolid(int x, int y, int z);
+        boolean isWater(int x, int y, int z);
+    }
+
+    /** True if the player AABB with its feet at (x, y, z) overlaps any solid non-water block. */
+    static boolean collidesWithSolid(ShaftView view, double x, double y, double z) {
+        int x0 = (int) Math.floor(x - PLAYER_HALF_W);
+        int x1 = (int) Math.floor(x + PLAYER_HALF_W);
+        int y0 = (int) Math.floor(y);
+        int y1 = (int) Math.floor(y + PLAYER_HEIGHT - 0.001);
+        int z0 = (int) Math.floor(z - PLAYER_HALF_W);
+        int z1 = (int) Math.floor(z + PLAYER_HALF_W);
 
         for (int bx = x0; bx <= x1; bx++) {
             for (int by = y0; by <= y1; by++) {
                 for (int bz = z0; bz <= z1; bz++) {
-                    BlockPos pos = new BlockPos(bx, by, bz);
-                    BlockState state = world.getBlockState(pos);
-                    if (!state.getFluidState().isIn(FluidTags.WATER) && state.isSolidBlock(world, pos)) {
-                        return true;
-                    }
+                    if (view.isSolid(bx, by, bz)) return true;
                 }
             }
         }
         return false;
     }
 
-    /** True if the player's feet are currently inside a water block. */
-    public static boolean isInWater(ClientWorld world, SimState s) {
-        BlockPos feet = new BlockPos((int) Math.floor(s.x), (int) Math.floor(s.y), (int) Math.floor(s.z));
-        return world.getBlockState(feet).getFluidState().isIn(FluidTags.WATER);
+    /** True if feet at (x, y, z) are inside a water block. */
+    static boolean isInWater(ShaftView view, double x, double y, double z) {
+        return view.isWater((int) Math.floor(x), (int) Math.floor(y), (int) Math.floor(z));
     }
 
     // ── Water target detection ──────────────────────────────────────────────
@@ -183,22 +296,40 @@ public class DropperSolver {
      * Scans ALL columns within r=0..10 and collects every distinct water block found,
      * not just the first per column. This ensures decorative water above the real landing
      * pool doesn't hide it: both pools get a seed, and BFS scoring picks the best one.
+     *
+     * Each chunk section's palette is checked first: a section with no water-bearing state
+     * in it (most of a dropper's air and walls) is skipped in one step, and only the rest
+     * are read block by block, straight from the section.
      */
     private static List<BlockPos> collectSeeds(ClientWorld world, int sx, int sy, int sz) {
         List<BlockPos> seeds = new ArrayList<>();
+        // Section → itself if it may hold water, null if it can't (or isn't loaded)
+        Long2ObjectOpenHashMap<ChunkSection> waterSections = new Long2ObjectOpenHashMap<>();
+        int bottom = sy - 400;
         for (int r = 0; r <= 10; r++) {
             for (int dx = -r; dx <= r; dx++) {
                 for (int dz = -r; dz <= r; dz++) {
                     if (r > 0 && Math.abs(dx) != r && Math.abs(dz) != r) continue;
+                    int x = sx + dx, z = sz + dz;
                     boolean inWater = false;
-                    for (int dy = 1; dy <= 400; dy++) {
-                        BlockPos pos = new BlockPos(sx + dx, sy - dy, sz + dz);
-                        boolean isWater = world.getBlockState(pos).getFluidState().isIn(FluidTags.WATER);
-                        // Add a seed at the first block of each distinct water stretch
-                        if (isWater && !inWater) {
-                            seeds.add(pos);
+                    int y = sy - 1;
+                    while (y >= bottom) {
+                        ChunkSection section = waterSection(world, waterSections, x >> 4, y >> 4, z >> 4);
+                        int sectionBottom = Math.max(bottom, y & ~15);
+                        if (section == null) {
+                            inWater = false;
+                            y = sectionBottom - 1;
+                            continue;
+                        }
+                        for (; y >= sectionBottom; y--) {
+                            boolean isWater = section.getBlockState(x & 15, y & 15, z & 15)
+                                .getFluidState().isIn(FluidTags.WATER);
+                            // Add a seed at the first block of each distinct water stretch
+                            if (isWater && !inWater) {
+                                seeds.add(new BlockPos(x, y, z));
+                            }
+                            inWater = isWater;
                         }
-                        inWater = isWater;
                     }
                 }
             }
@@ -206,11 +337,44 @@ public class DropperSolver {
         return seeds;
     }
 
+    /**
+     * The chunk section at (cx, cy, cz) if its palette has a state with water in it (water,
+     * or anything waterlogged), else null — also for sections outside the world or in
+     * chunks not loaded. Answers are kept in cache for the rest of the scan.
+     */
+    private static ChunkSection waterSection(ClientWorld world, Long2ObjectOpenHashMap<ChunkSection> cache,
+                                             int cx, int cy, int cz) {
+        long key = ChunkSectionPos.asLong(cx, cy, cz);
+        if (cache.containsKey(key)) return cache.get(key);
+        ChunkSection found = null;
+        int index = world.sectionCoordToIndex(cy);
+        if (world.getChunkManager().isChunkLoaded(cx, cz)) {
+            ChunkSection[] sections = world.getChunk(cx, cz).getSectionArray();
+            if (index >= 0 && index < sections.length && !sections[index].isEmpty()
+                    && sections[index].hasAny(state -> state.getFluidState().isIn(FluidTags.WATER))) {
+                found = sections[index];
+            }
+        }
+        cache.put(key, found);
+        return found;
+    }
+
     // ── Steering ────────────────────────────────────────────────────────────
 
     // How many world-space directions to try when obstacle-dodging (every 360/DODGE_DIRS degrees)
     private static final int DODGE_DIRS = 16;
 
+    // Scores the dodge directions side by side. Small: leave cores for the game itself.
+    private static final ForkJoinPool POOL = new ForkJoinPool(
+        Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 2)),
+        pool -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            t.setName("solarhelper-dropper-" + t.getPoolIndex());
+            t.setDaemon(true);
+            return t;
+        },
+        null, false);
+
     // Skip collision detection for the first N simulated ticks.
     // The player has just left their starting platform; after 1 physics tick the simulated
     // body has fallen slightly INTO that platform (the sim doesn't do collision resolution),
@@ -225,11 +389,15 @@ public class DropperSolver {
      * This prevents the solver from oscillating between two similarly-scored yaws.
      *
      * Then: try going straight toward water. If blocked, sweep DODGE_DIRS world-space yaw
-     * directions (every 22.5°, smallest detour first) and return the best one.
+     * directions (every 22.5°, smallest detour first) and return the best one. The sweep
+     * is scored on POOL against a read-only view of the shaft (see sweep()).
      *
      * Key insight: changing the yaw and pressing forward redirects ALL horizontal thrust,
      * far more effective than strafing (which adds only ±0.02 blocks/tick sideways).
      *
+     * If no single yaw lands in the water, plan() searches input sequences instead. While
+     * its plan is being followed, the shortcuts above only take over if they land too.
+     *
      * @param prevTargetYaw the yaw the solver chose last time (Float.NaN on first call)
      */
     public static Steering computeSteering(ClientWorld world, SimState state, double[] waterCenter,
@@ -241,67 +409,301 @@ public class DropperSolver {
         double dz = targetZ - state.z;
         float baseYaw = (float) Math.toDegrees(Math.atan2(-dx, dz));
 
+        ShaftView view = ShaftMap.live(world);
+        // While following a plan, a single yaw only takes over if it lands in the water
+        double good = lastPlan != null ? 50.0 : 1_000.0;
+
         // Hysteresis: keep the previous yaw if it still clears all obstacles.
         // This kills yaw-hunting when two adjacent directions score equally well.
         if (!Float.isNaN(prevTargetYaw)) {
-            if (scoreYaw(world, state, prevTargetYaw, targetX, targetZ) < 1_000.0) {
+            if (scoreYaw(view, state, prevTargetYaw, targetX, targetZ, () -> false) < good) {
+                lastPlan = null;
                 return new Steering(prevTargetYaw, 1, 0);
             }
         }
 
         // Direct route toward water
-        double directScore = scoreYaw(world, state, baseYaw, targetX, targetZ);
-        if (directScore < 1_000.0) {
+        double directScore = scoreYaw(view, state, baseYaw, targetX, targetZ, () -> false);
+        if (directScore < good) {
+            lastPlan = null;
             return new Steering(baseYaw, 1, 0);
         }
 
         // Obstacle ahead — sweep DODGE_DIRS directions, smallest detour first
-        float bestYaw = baseYaw;
-        double bestScore = directScore;
+        ShaftView readOnly = ShaftMap.readOnly(world);
+        Candidate dodge = sweep(readOnly, state, baseYaw, directScore, targetX, targetZ);
+        if (dodge.score() < 50.0) {
+            lastPlan = null;
+            return new Steering(dodge.yaw(), 1, 0); // lands in the water
+        }
+
+        // No single yaw lands in the water: plan a sequence of inputs
+        Steering planned = plan(readOnly, state, baseYaw, targetX, targetZ);
+        return planned != null ? planned : new Steering(dodge.yaw(), 1, 0);
+    }
 
-        for (int i = 1; i <= DODGE_DIRS / 2; i++) {
+    /** A yaw held with forward pressed, and its score. */
+    private record Candidate(float yaw, double score) {}
+
+    /**
+     * Scores the dodge directions in rings (±22.5°, then ±45°, ...) and returns the best
+     * yaw with its score, or baseYaw with directScore if none beats it. The result is exactly what scoring them
+     * one after another would give: rings in order, + before − within a ring, a strictly
+     * lower score replacing the best, and stopping after the first ring that holds a
+     * collision-free direction.
+     *
+     * Every direction is scored as its own task on POOL, over ShaftMap's read-only view
+     * (the client thread waits here, so nothing changes underneath). Once a ring turns up
+     * a collision-free direction, tasks for rings beyond it are skipped or stop early —
+     * the sequential sweep would never have reached them.
+     */
+    private static Candidate sweep(ShaftView view, SimState state, float baseYaw, double directScore,
+                                   double targetX, double targetZ) {
+        int rings = DODGE_DIRS / 2;
+        float[] yaws = new float[2 * rings];
+        double[] scores = new double[2 * rings];
+        for (int i = 1; i <= rings; i++) {
             float step = i * (360f / DODGE_DIRS);
-            for (float candidate : new float[]{baseYaw + step, baseYaw - step}) {
-                double score = scoreYaw(world, state, candidate, targetX, targetZ);
-                if (score < bestScore) {
-                    bestScore = score;
-                    bestYaw = candidate;
+            yaws[2 * i - 2] = baseYaw + step;
+            yaws[2 * i - 1] = baseYaw - step;
+        }
+
+        AtomicInteger clearRing = new AtomicInteger(Integer.MAX_VALUE); // lowest ring with a clear direction
+        List<Callable<Void>> tasks = new ArrayList<>(yaws.length);
+        for (int c = 0; c < yaws.length; c++) {
+            int candidate = c, ring = c / 2 + 1;
+            BooleanSupplier cancelled = () -> ring > clearRing.get();
+            tasks.add(() -> {
+                double score = cancelled.getAsBoolean() ? Double.NaN
+                    : scoreYaw(view, state, yaws[candidate], targetX, targetZ, cancelled);
+                scores[candidate] = score;
+                if (score < 1_000.0) clearRing.accumulateAndGet(ring, Math::min);
+                return null;
+            });
+        }
+        POOL.invokeAll(tasks); // waits for all; also publishes scores[] to this thread
+
+        // Replay in sequential order; every ring up to the first clear one was scored in full
+        float bestYaw = baseYaw;
+        double bestScore = directScore;
+        for (int i = 1; i <= rings; i++) {
+            for (int c = 2 * i - 2; c <= 2 * i - 1; c++) {
+                if (scores[c] < bestScore) {
+                    bestScore = scores[c];
+                    bestYaw = yaws[c];
                 }
             }
             if (bestScore < 1_000.0) break; // found a clear path, stop searching
         }
-
-        return new Steering(bestYaw, 1, 0);
+        return new Candidate(bestYaw, bestScore);
     }
 
     /**
-     * Simulates LOOKAHEAD ticks pressing forward at the given yaw and scores the path.
+     * Follows LOOKAHEAD ticks pressing forward at the given yaw and scores the path.
      * Lower = better. Scores ≥ 1_000 mean a collision was hit.
+     * Returns NaN (which never compares as better) if cancelled reports true on the way.
+     */
+    private static double scoreYaw(ShaftView view, SimState start, float yaw,
+                                   double targetX, double targetZ, BooleanSupplier cancelled) {
+        Leg leg = roll(view, start, 0, yaw, 1, 0, LOOKAHEAD, cancelled);
+        return leg == null ? Double.NaN : score(leg, targetX, targetZ);
+    }
+
+    // ── Rollouts ────────────────────────────────────────────────────────────
+
+    private static final int FREE = 0, HIT = 1, WATER = 2;
+
+    /** Where a stretch of constant input ends: its state, absolute tick, and what stopped it (FREE if nothing). */
+    private record Leg(SimState end, int tick, int event) {}
+
+    /**
+     * Follows constant input for up to ticks ticks from start, which is tick0 ticks into
+     * the fall, stopping at the first collision or water.
+     *
+     * The world is only tested at the ticks where the player's box (or feet) enters a new
+     * block — between those, nothing it overlaps has changed. The first tick after the
+     * grace period is always tested as well.
      *
-     * Collision checking is skipped for the first GRACE_TICKS ticks to avoid false
-     * positives caused by the starting platform (the sim can't resolve collisions, so
+     * Collision checking is skipped for the first GRACE_TICKS ticks of the fall to avoid
+     * false positives caused by the starting platform (the sim can't resolve collisions, so
      * the simulated body briefly overlaps the platform block before falling clear).
+     *
+     * Null if cancelled reports true on the way.
      */
-    private static double scoreYaw(ClientWorld world, SimState start, float yaw,
-                                   double targetX, double targetZ) {
-        SimState s = start;
+    private static Leg roll(ShaftView view, SimState start, int tick0, float yaw, int forward, int sideways,
+                            int ticks, BooleanSupplier cancelled) {
+        Trajectory path = new Trajectory(start, yaw, forward, sideways);
+        int end = Math.min(ticks, LOOKAHEAD);
+        int graceEnd = GRACE_TICKS + 1 - tick0;
+
+        int t = 0;
+        while (true) {
+            if (cancelled.getAsBoolean()) return null;
+            int next = path.nextCrossing(t);
+            if (t < graceEnd) next = Math.min(next, graceEnd);
+            if (next > end) break;
+            t = next;
+            double x = path.x(t), y = path.y(t), z = path.z(t);
+
+            if (tick0 + t > GRACE_TICKS && collidesWithSolid(view, x, y, z)) {
+                return new Leg(path.state(t), tick0 + t, HIT);
+            }
+            if (isInWater(view, x, y, z)) {
+                return new Leg(path.state(t), tick0 + t, WATER);
+            }
+        }
+        return new Leg(path.state(end), tick0 + end, FREE);
+    }
+
+    /**
+     * Lower = better: distance from the target where the leg lands in water, 50 more if
+     * it never reaches water, and ≥ 100_000 for a collision (worse the sooner it comes).
+     */
+    private static double score(Leg leg, double targetX, double targetZ) {
+        if (leg.event() == HIT) return 100_000.0 + (LOOKAHEAD - leg.tick() + 1) * 500.0;
+        double ddx = leg.end().x - targetX;
+        double ddz = leg.end().z - targetZ;
+        double dist = Math.sqrt(ddx * ddx + ddz * ddz);
+        return leg.event() == WATER ? dist : 50.0 + dist;
+    }
+
+    // ── Input planning ──────────────────────────────────────────────────────
+
+    // Inputs are held for SEGMENT_TICKS at a time, for up to PLAN_SEGMENTS segments; after
+    // that a plan is scored by falling on pressing forward toward the water
+    private static final int SEGMENT_TICKS = 8;
+    private static final int PLAN_SEGMENTS = 4;
+    private static final int BEAM_WIDTH = 12;
+    // Per segment: one of PLAN_YAWS yaws (every 22.5°, starting toward the water) × one key set.
+    // Forward + strafe is just forward at a yaw 45° over, so it has no key set of its own
+    private static final int PLAN_YAWS = 16;
+    private static final int[][] PLAN_KEYS = {{1, 0}, {0, 0}}; // {forward, sideways}
+    private static final int PLAN_INPUTS = PLAN_YAWS * PLAN_KEYS.length;
+    // Wall-clock budget of one plan() call, on the tick thread's time
+    private static final long PLAN_BUDGET_NS = 4_000_000L;
 
-        for (int t = 0; t < LOOKAHEAD; t++) {
-            s = simulateTick(s, yaw, 1, 0);
+    // The inputs of the last plan, tried again first next time (client thread)
+    private static int[] lastPlan = null;
 
-            if (t >= GRACE_TICKS && collidesWithSolid(world, s)) {
-                return 100_000.0 + (LOOKAHEAD - t) * 500.0;
+    /**
+     * A plan in the beam. inputs[k] is the input of segment k (yaw index × PLAN_KEYS.length
+     * + key index); end is where they leave the player, after tick ticks of the fall.
+     * Final plans (a collision or a landing) aren't extended.
+     */
+    private record PlanNode(int[] inputs, SimState end, int tick, double score, boolean last) {}
+
+    /** Forgets the last plan; called when the solver starts. */
+    public static void resetPlan() {
+        lastPlan = null;
+    }
+
+    /**
+     * Receding-horizon input planner. A beam search over piecewise-constant input
+     * sequences: each level extends every plan in the beam by one SEGMENT_TICKS segment of
+     * each of the PLAN_INPUTS inputs, scores the result (a collision or landing on the way
+     * counts as is; otherwise the rest of the fall is rolled out pressing forward toward
+     * the water) and keeps the BEAM_WIDTH best plans that can still be extended.
+     *
+     * Extensions start from the state their prefix ended in, so no prefix is simulated
+     * twice; the last call's plan is evaluated first and its prefixes seed that memo, so a
+     * plan that still works is kept unless something strictly better turns up. Each level
+     * is scored on POOL, one task per plan. The search stops at PLAN_BUDGET_NS, returning
+     * the best plan found so far — only its first input is used before the next solve.
+     *
+     * Null if no plan was scored within the budget.
+     */
+    private static Steering plan(ShaftView view, SimState state, float baseYaw, double targetX, double targetZ) {
+        long deadline = System.nanoTime() + PLAN_BUDGET_NS;
+        BooleanSupplier late = () -> System.nanoTime() > deadline;
+        Map<List<Integer>, PlanNode> memo = new HashMap<>();
+        PlanNode root = new PlanNode(new int[0], state, 0, Double.MAX_VALUE, false);
+        PlanNode best = null;
+
+        // The previous plan first: its prefixes go in the memo and it sets the bar
+        if (lastPlan != null) {
+            PlanNode node = root;
+            for (int input : lastPlan) {
+                node = extend(view, node, input, baseYaw, targetX, targetZ, late);
+                if (node == null) break;
+                memo.put(key(node.inputs()), node);
+                if (best == null || node.score() < best.score()) best = node;
+                if (node.last()) break;
             }
+        }
 
-            if (isInWater(world, s)) {
-                double ddx = s.x - targetX;
-                double ddz = s.z - targetZ;
-                return Math.sqrt(ddx * ddx + ddz * ddz);
+        List<PlanNode> beam = List.of(root);
+        for (int depth = 0; depth < PLAN_SEGMENTS && !beam.isEmpty() && !late.getAsBoolean(); depth++) {
+            PlanNode[] children = new PlanNode[beam.size() * PLAN_INPUTS];
+            List<Callable<Void>> tasks = new ArrayList<>(beam.size());
+            for (int p = 0; p < beam.size(); p++) {
+                PlanNode parent = beam.get(p);
+                int base = p * PLAN_INPUTS;
+                tasks.add(() -> {
+                    for (int input = 0; input < PLAN_INPUTS; input++) {
+                        PlanNode known = memo.get(key(append(parent.inputs(), input)));
+                        children[base + input] = known != null ? known
+                            : extend(view, parent, input, baseYaw, targetX, targetZ, late);
+                    }
+                    return null;
+                });
+            }
+            POOL.invokeAll(tasks);
+
+            // Stable order (by score, then by position) keeps the result deterministic within budget
+            List<PlanNode> scored = new ArrayList<>();
+            for (PlanNode child : children) if (child != null) scored.add(child);
+            scored.sort(Comparator.comparingDouble(PlanNode::score));
+            for (PlanNode child : scored) {
+                if (best == null || child.score() < best.score()) best = child;
             }
+            List<PlanNode> next = new ArrayList<>(BEAM_WIDTH);
+            for (PlanNode child : scored) {
+                if (next.size() == BEAM_WIDTH) break;
+                if (!child.last()) next.add(child);
+            }
+            beam = next;
+        }
+
+        if (best == null || best.inputs().length == 0) return null;
+        lastPlan = best.inputs();
+        int first = best.inputs()[0];
+        int[] keys = PLAN_KEYS[first % PLAN_KEYS.length];
+        return new Steering(planYaw(baseYaw, first), keys[0], keys[1]);
+    }
+
+    /** Plan node for parent followed by one more segment of input; null if out of time. */
+    private static PlanNode extend(ShaftView view, PlanNode parent, int input, float baseYaw,
+                                   double targetX, double targetZ, BooleanSupplier late) {
+        int[] keys = PLAN_KEYS[input % PLAN_KEYS.length];
+        Leg leg = roll(view, parent.end(), parent.tick(), planYaw(baseYaw, input), keys[0], keys[1],
+            Math.min(SEGMENT_TICKS, LOOKAHEAD - parent.tick()), late);
+        if (leg == null) return null;
+        int[] inputs = append(parent.inputs(), input);
+        if (leg.event() != FREE || leg.tick() >= LOOKAHEAD) {
+            return new PlanNode(inputs, leg.end(), leg.tick(), score(leg, targetX, targetZ), true);
         }
 
-        double ddx = s.x - targetX;
-        double ddz = s.z - targetZ;
-        return 50.0 + Math.sqrt(ddx * ddx + ddz * ddz);
+        // Score the rest of the fall pressing forward toward the water from here
+        SimState end = leg.end();
+        float towardWater = (float) Math.toDegrees(Math.atan2(-(targetX - end.x), targetZ - end.z));
+        Leg rest = roll(view, end, leg.tick(), towardWater, 1, 0, LOOKAHEAD - leg.tick(), late);
+        if (rest == null) return null;
+        return new PlanNode(inputs, end, leg.tick(), score(rest, targetX, targetZ), false);
+    }
+
+    private static float planYaw(float baseYaw, int input) {
+        return baseYaw + (input / PLAN_KEYS.length) * (360f / PLAN_YAWS);
+    }
+
+    private static int[] append(int[] inputs, int input) {
+        int[] longer = Arrays.copyOf(inputs, inputs.length + 1);
+        longer[inputs.length] = input;
+        return longer;
+    }
+
+    private static List<Integer> key(int[] inputs) {
+        List<Integer> key = new ArrayList<>(inputs.length);
+        for (int input : inputs) key.add(input);
+        return key;
     }
 }
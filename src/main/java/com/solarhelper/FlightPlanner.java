@@ -0,0 +1,213 @@
+package com.solarhelper;
+
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Path planner for a player who can fly.
+ *
+ * A cell is free when the player's feet and head blocks are both passable; there is no
+ * ground to stick to, so the search moves through free space over the full
+ * 26-neighbourhood. A diagonal move needs every cell it cuts past to be free as well, so
+ * the player's box never clips a corner. The heuristic is the exact 3D octile distance,
+ * with a slight weight so that among equally good nodes the one nearer the goal is
+ * expanded first — across open air the search runs straight at the target rather than
+ * widening into a front.
+ *
+ * The block path is then pulled into straight airborne legs with a line-of-sight test on
+ * the player's 0.6 × 1.8 box, so a flight across open air comes back as a few waypoints.
+ *
+ * All search state lives on the PathPlanner worker thread.
+ */
+final class FlightPlanner {
+
+    private static final int MAX_EXPANSIONS = 20_000;
+    private static final int CANCEL_CHECK_INTERVAL = 256;
+    // Heuristic weight: breaks ties toward the goal, costs at most 0.1% in path length
+    private static final double TIE_BREAK = 1.001;
+
+    private static final double SQRT2 = Math.sqrt(2);
+    private static final double SQRT3 = Math.sqrt(3);
+
+    // Player hitbox, and the sample spacing for line-of-sight checks (must be smaller than the width)
+    private static final double PLAYER_WIDTH = 0.6;
+    private static final double PLAYER_HEIGHT = 1.8;
+    private static final double LOS_STEP = 0.2;
+
+    // ── Move table ──────────────────────────────────────────────────────────
+    // The 26 unit offsets, with their cost and the offsets of the cells each one cuts past
+    // (every proper sub-combination of its non-zero axes: 0 for a face move, 2 for an
+    // edge move, 6 for a corner move).
+
+    private static final int MOVES = 26;
+    private static final int[] MOVE_DX = new int[MOVES], MOVE_DY = new int[MOVES], MOVE_DZ = new int[MOVES];
+    private static final double[] MOVE_COST = new double[MOVES];
+    private static final int[][] MOVE_CORNERS = new int[MOVES][];
+
+    static {
+        int m = 0;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    int axes = Math.abs(dx) + Math.abs(dy) + Math.abs(dz);
+                    if (axes == 0) continue;
+                    MOVE_DX[m] = dx;
+                    MOVE_DY[m] = dy;
+                    MOVE_DZ[m] = dz;
+                    MOVE_COST[m] = axes == 1 ? 1.0 : axes == 2 ? SQRT2 : SQRT3;
+                    // Sub-combinations as packed x/y/z triples
+                    List<int[]> corners = new ArrayList<>();
+                    for (int mask = 1; mask < 7; mask++) {
+                        int cx = (mask & 1) != 0 ? dx : 0;
+                        int cy = (mask & 2) != 0 ? dy : 0;
+                        int cz = (mask & 4) != 0 ? dz : 0;
+                        int n = Math.abs(cx) + Math.abs(cy) + Math.abs(cz);
+                        if (n > 0 && n < axes && !containsOffset(corners, cx, cy, cz)) corners.add(new int[] {cx, cy, cz});
+                    }
+                    int[] flat = new int[corners.size() * 3];
+                    for (int i = 0; i < corners.size(); i++) System.arraycopy(corners.get(i), 0, flat, i * 3, 3);
+                    MOVE_CORNERS[m] = flat;
+                    m++;
+                }
+            }
+        }
+    }
+
+    private static boolean containsOffset(List<int[]> offsets, int x, int y, int z) {
+        for (int[] o : offsets) if (o[0] == x && o[1] == y && o[2] == z) return true;
+        return false;
+    }
+
+    // Worker-thread search state, reused between searches
+    private static final PathNodeTable NODES = new PathNodeTable();
+    private static final NodeHeap OPEN = new NodeHeap();
+
+    private FlightPlanner() {}
+
+    /**
+     * Plans a flight from start to within reachDist of goal. If the goal isn't reached
+     * within the budget, the result leads to the expanded cell closest to it and is
+     * flagged partial. Null if no move gets closer, or if cancelled (checked every
+     * CANCEL_CHECK_INTERVAL expansions).
+     */
+    static PathFinder.PathResult findPath(PassabilityView view, BlockPos start, BlockPos goal, double reachDist,
+                                          BooleanSupplier cancelled) {
+        int gx = goal.getX(), gy = goal.getY(), gz = goal.getZ();
+        double reachSq = reachDist * reachDist;
+        NODES.clear();
+        OPEN.clear();
+
+        int startSlot = NODES.findOrAdd(start.asLong());
+        NODES.set(startSlot, 0, PathNodeTable.NONE);
+        int bestSlot = startSlot;
+        double bestH = heuristic(start.getX(), start.getY(), start.getZ(), gx, gy, gz);
+        OPEN.push(startSlot, bestH * TIE_BREAK);
+
+        for (int iterations = 0; !OPEN.isEmpty() && iterations < MAX_EXPANSIONS; iterations++) {
+            if (iterations % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) return null;
+            int current = OPEN.pop();
+            NODES.close(current);
+            long pos = NODES.pos(current);
+            int x = BlockPos.unpackLongX(pos), y = BlockPos.unpackLongY(pos), z = BlockPos.unpackLongZ(pos);
+
+            if (PathFinder.squaredDistance(x, y, z, gx, gy, gz) <= reachSq) {
+                return new PathFinder.PathResult(reconstruct(view, current), false);
+            }
+            double h = heuristic(x, y, z, gx, gy, gz);
+            if (h < bestH) {
+                bestH = h;
+                bestSlot = current;
+            }
+
+            double g = NODES.g(current);
+            for (int m = 0; m < MOVES; m++) {
+                int nx = x + MOVE_DX[m], ny = y + MOVE_DY[m], nz = z + MOVE_DZ[m];
+                if (!canMove(view, x, y, z, m)) continue;
+                double newG = g + MOVE_COST[m];
+                int slot = NODES.findOrAdd(BlockPos.asLong(nx, ny, nz));
+                if (newG < NODES.g(slot)) {
+                    NODES.set(slot, newG, current);
+                    OPEN.push(slot, newG + heuristic(nx, ny, nz, gx, gy, gz) * TIE_BREAK);
+                }
+            }
+        }
+        if (cancelled.getAsBoolean() || bestSlot == startSlot) return null;
+        return new PathFinder.PathResult(reconstruct(view, bestSlot), true);
+    }
+
+    /** 3D octile distance: the exact cost of an unobstructed flight over the move table. */
+    private static double heuristic(int x, int y, int z, int gx, int gy, int gz) {
+        int a = Math.abs(x - gx), b = Math.abs(y - gy), c = Math.abs(z - gz);
+        int max = Math.max(a, Math.max(b, c));
+        int min = Math.min(a, Math.min(b, c));
+        int mid = a + b + c - max - min;
+        return max + (SQRT2 - 1) * mid + (SQRT3 - SQRT2) * min;
+    }
+
+    /** Whether move m can be made from (x, y, z): the target and every cell it cuts past are free. */
+    private static boolean canMove(PassabilityView view, int x, int y, int z, int m) {
+        if (!isFree(view, x + MOVE_DX[m], y + MOVE_DY[m], z + MOVE_DZ[m])) return false;
+        int[] corners = MOVE_CORNERS[m];
+        for (int i = 0; i < corners.length; i += 3) {
+            if (!isFree(view, x + corners[i], y + corners[i + 1], z + corners[i + 2])) return false;
+        }
+        return true;
+    }
+
+    /** Feet and head both passable. */
+    private static boolean isFree(PassabilityView view, int x, int y, int z) {
+        return view.isPassable(x, y, z) && view.isPassable(x, y + 1, z);
+    }
+
+    private static List<BlockPos> reconstruct(PassabilityView view, int slot) {
+        List<BlockPos> path = new ArrayList<>();
+        while (slot != PathNodeTable.NONE) {
+            path.add(BlockPos.fromLong(NODES.pos(slot)));
+            slot = NODES.parent(slot);
+        }
+        Collections.reverse(path);
+        if (path.size() <= 2) return path;
+
+        // String pulling: from each kept waypoint, fly straight to the furthest one in sight
+        List<BlockPos> smoothed = new ArrayList<>();
+        smoothed.add(path.get(0));
+        int i = 0;
+        while (i < path.size() - 1) {
+            int j = i + 1;
+            while (j + 1 < path.size() && hasLineOfSight(view, path.get(i), path.get(j + 1))) j++;
+            smoothed.add(path.get(j));
+            i = j;
+        }
+        return smoothed;
+    }
+
+    /**
+     * True if the player's box can fly in a straight line from the centre of cell a to the
+     * centre of cell b (feet at the bottom of each) without touching a solid block.
+     */
+    static boolean hasLineOfSight(PassabilityView view, BlockPos a, BlockPos b) {
+        double ax = a.getX() + 0.5, ay = a.getY(), az = a.getZ() + 0.5;
+        double dx = b.getX() - a.getX(), dy = b.getY() - a.getY(), dz = b.getZ() - a.getZ();
+        int steps = Math.max(1, (int) Math.ceil(Math.sqrt(dx * dx + dy * dy + dz * dz) / LOS_STEP));
+        double half = PLAYER_WIDTH / 2;
+        for (int s = 0; s <= steps; s++) {
+            double t = (double) s / steps;
+            double px = ax + dx * t, py = ay + dy * t, pz = az + dz * t;
+            int minX = (int) Math.floor(px - half), maxX = (int) Math.floor(px + half);
+            int minY = (int) Math.floor(py), maxY = (int) Math.floor(py + PLAYER_HEIGHT);
+            int minZ = (int) Math.floor(pz - half), maxZ = (int) Math.floor(pz + half);
+            for (int bx = minX; bx <= maxX; bx++) {
+                for (int by = minY; by <= maxY; by++) {
+                    for (int bz = minZ; bz <= maxZ; bz++) {
+                        if (!view.isPassable(bx, by, bz)) return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,356 @@
+package com.solarhelper;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Plans the order the head seeker visits heads in.
+ *
+ * Walking distances come from one Dijkstra per head (plus one from the player) over a
+ * snapshot of the map, using the same moves and costs as PathFinder. Each search starts
+ * from every standing cell within reach of its head at once and stops when every other
+ * head has been reached or its node budget runs out. Pairs it never reaches fall back to
+ * a penalised straight-line distance.
+ *
+ * The order is an open tour from the player: nearest neighbour, then 2-opt and Or-opt
+ * moves until neither improves it, each scored by its change in cost and applied in
+ * place. Walking costs are directed (drops are one-way), so a 2-opt reversal also swaps
+ * the cost of the run it reverses for the cost of walking it backwards; prefix sums of
+ * both directions along the tour make that O(1) too.
+ *
+ * Planning runs on its own background thread; the render thread only reads the result.
+ * reset() bumps a generation counter: a plan started before it stops early, and a tour
+ * stamped with an older generation is never handed out.
+ */
+public final class HeadRoutePlanner {
+
+    // Same reach the seeker's path searches use
+    private static final double REACH = 1.5;
+    private static final int MARGIN = 24;
+    private static final int MAX_REACH_XZ = 192;
+    private static final int MAX_REACH_Y = 64;
+    // Node budget per Dijkstra; heads further away than this covers use the fallback
+    private static final int MAX_NODES = 80_000;
+    // Straight-line distance × this stands in for pairs the search didn't reach
+    private static final double UNREACHED_FACTOR = 3.0;
+    private static final int MAX_IMPROVE_PASSES = 50;
+
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "solarhelper-route");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** A planned visiting order and its estimated walking cost. */
+    public record Tour(List<BlockPos> order, double cost) {}
+
+    private record Stamped(int generation, Tour tour) {}
+
+    private static volatile Stamped tour = null;
+    private static volatile int generation = 0;
+    private static volatile boolean planning = false;
+    private static Set<BlockPos> plannedFor = Set.of(); // render thread only
+
+    private HeadRoutePlanner() {}
+
+    // ── Render thread ───────────────────────────────────────────────────────
+
+    /**
+     * Starts planning a tour from feet through heads unless one was already planned (or is
+     * being planned) for this set of heads. Heads collected since only get dropped from
+     * the tour, so collecting doesn't trigger a replan; new heads do.
+     */
+    public static void plan(ClientWorld world, BlockPos feet, Set<BlockPos> heads) {
+        if (planning || heads.isEmpty() || plannedFor.containsAll(heads)) return;
+        plannedFor = new HashSet<>(heads);
+        List<BlockPos> targets = new ArrayList<>(heads);
+        int[] box = box(feet, targets);
+        PassabilitySnapshot snapshot = PassabilityCache.of(world).snapshot(box[0], box[1], box[2], box[3], box[4], box[5]);
+
+        int gen = generation;
+        planning = true;
+        WORKER.execute(() -> {
+            try {
+                long t0 = System.nanoTime();
+                Tour planned = solve(snapshot, feet, targets, () -> generation != gen);
+                if (planned == null) return;
+                tour = new Stamped(gen, planned);
+                SolarHelperClient.LOGGER.info("Head route: {} heads, est. cost {} blocks, planned in {} ms",
+                    targets.size(), Math.round(planned.cost()), (System.nanoTime() - t0) / 1_000_000);
+            } catch (Throwable t) {
+                SolarHelperClient.LOGGER.error("Head route planning failed", t);
+            } finally {
+                planning = false;
+            }
+        });
+    }
+
+    /** First head of the planned tour that remaining contains and accept allows, or null if there's no tour. */
+    public static BlockPos next(Set<BlockPos> remaining, Predicate<BlockPos> accept) {
+        Stamped t = tour;
+        if (t == null || t.generation() != generation) return null;
+        for (BlockPos head : t.tour().order()) {
+            if (remaining.contains(head) && accept.test(head)) return head;
+        }
+        return null;
+    }
+
+    /** Forgets the tour and abandons a plan in progress (head seeker stopped or the world changed). */
+    public static void reset() {
+        generation++;
+        tour = null;
+        plannedFor = Set.of();
+    }
+
+    private static int[] box(BlockPos feet, List<BlockPos> heads) {
+        int minX = feet.getX(), minY = feet.getY(), minZ = feet.getZ();
+        int maxX = minX, maxY = minY, maxZ = minZ;
+        for (BlockPos h : heads) {
+            minX = Math.min(minX, h.getX()); maxX = Math.max(maxX, h.getX());
+            minY = Math.min(minY, h.getY()); maxY = Math.max(maxY, h.getY());
+            minZ = Math.min(minZ, h.getZ()); maxZ = Math.max(maxZ, h.getZ());
+        }
+        return new int[] {
+            Math.max(minX - MARGIN, feet.getX() - MAX_REACH_XZ),
+            Math.max(minY - MARGIN, feet.getY() - MAX_REACH_Y),
+            Math.max(minZ - MARGIN, feet.getZ() - MAX_REACH_XZ),
+            Math.min(maxX + MARGIN, feet.getX() + MAX_REACH_XZ),
+            Math.min(maxY + MARGIN, feet.getY() + MAX_REACH_Y),
+            Math.min(maxZ + MARGIN, feet.getZ() + MAX_REACH_XZ)
+        };
+    }
+
+    // ── Planning (worker thread) ────────────────────────────────────────────
+
+    /** The tour from feet through heads, or null if cancelled first. */
+    static Tour solve(PassabilityView view, BlockPos feet, List<BlockPos> heads, BooleanSupplier cancelled) {
+        int n = heads.size();
+        // Node 0 is the player, nodes 1..n the heads
+        double[][] dist = distances(view, feet, heads, cancelled);
+        if (dist == null) return null;
+
+        // Nearest neighbour from the player
+        int[] order = new int[n];
+        boolean[] used = new boolean[n + 1];
+        int at = 0;
+        for (int k = 0; k < n; k++) {
+            int best = -1;
+            for (int j = 1; j <= n; j++) {
+                if (!used[j] && (best < 0 || dist[at][j] < dist[at][best])) best = j;
+            }
+            used[best] = true;
+            order[k] = best;
+            at = best;
+        }
+
+        if (!improve(order, dist, cancelled)) return null;
+
+        List<BlockPos> result = new ArrayList<>(n);
+        for (int node : order) result.add(heads.get(node - 1));
+        return new Tour(result, tourCost(order, dist));
+    }
+
+    /** dist[a][b] = walking cost from node a to within reach of head b (node 0 = player); null if cancelled. */
+    private static double[][] distances(PassabilityView view, BlockPos feet, List<BlockPos> heads,
+                                        BooleanSupplier cancelled) {
+        int n = heads.size();
+        // Standing cells within reach of each head
+        Long2ObjectOpenHashMap<IntArrayList> goalsAt = new Long2ObjectOpenHashMap<>();
+        List<long[]> sources = new ArrayList<>(n + 1);
+        sources.add(new long[] { PathFinder.snapToGround(view, feet, false).asLong() });
+        int r = (int) Math.ceil(REACH);
+        for (int h = 0; h < n; h++) {
+            BlockPos head = heads.get(h);
+            List<Long> cells = new ArrayList<>();
+            for (int dx = -r; dx <= r; dx++) {
+                for (int dy = -r; dy <= r; dy++) {
+                    for (int dz = -r; dz <= r; dz++) {
+                        if (dx * dx + dy * dy + dz * dz > REACH * REACH) continue;
+                        int x = head.getX() + dx, y = head.getY() + dy, z = head.getZ() + dz;
+                        if (!view.isStandable(x, y, z)) continue;
+                        long key = BlockPos.asLong(x, y, z);
+                        cells.add(key);
+                        goalsAt.computeIfAbsent(key, k -> new IntArrayList()).add(h + 1);
+                    }
+                }
+            }
+            // Nowhere to stand close by: start from the ground under the head instead
+            if (cells.isEmpty()) cells.add(PathFinder.snapToGround(view, head, false).asLong());
+            sources.add(cells.stream().mapToLong(Long::longValue).toArray());
+        }
+
+        double[][] dist = new double[n + 1][n + 1];
+        PathNodeTable nodes = new PathNodeTable();
+        NodeHeap open = new NodeHeap();
+        for (int a = 0; a <= n; a++) {
+            if (cancelled.getAsBoolean()) return null;
+            Arrays.fill(dist[a], Double.POSITIVE_INFINITY);
+            dist[a][a] = 0;
+            dijkstra(view, sources.get(a), goalsAt, dist[a], n, nodes, open);
+            for (int b = 1; b <= n; b++) {
+                if (dist[a][b] == Double.POSITIVE_INFINITY) {
+                    BlockPos from = a == 0 ? feet : heads.get(a - 1);
+                    dist[a][b] = UNREACHED_FACTOR * Math.sqrt(from.getSquaredDistance(heads.get(b - 1)));
+                }
+            }
+        }
+        return dist;
+    }
+
+    /** Multi-source Dijkstra; fills row[b] for every head b whose reach cells it settles. */
+    private static void dijkstra(PassabilityView view, long[] sources, Long2ObjectOpenHashMap<IntArrayList> goalsAt,
+                                 double[] row, int heads, PathNodeTable nodes, NodeHeap open) {
+        nodes.clear();
+        open.clear();
+        for (long s : sources) {
+            int slot = nodes.findOrAdd(s);
+            nodes.set(slot, 0, PathNodeTable.NONE);
+            open.push(slot, 0);
+        }
+
+        long[] neighbors = new long[PathFinder.MAX_NEIGHBORS];
+        // Heads (columns 1..heads) with a cost already; the player's column is never a goal
+        int found = 0;
+        for (int b = 1; b <= heads; b++) if (row[b] < Double.POSITIVE_INFINITY) found++;
+        while (!open.isEmpty() && nodes.size() < MAX_NODES && found < heads) {
+            int current = open.pop();
+            long pos = nodes.pos(current);
+            double g = nodes.g(current);
+            nodes.close(current);
+
+            IntArrayList goals = goalsAt.get(pos);
+            if (goals != null) {
+                for (int i = 0; i < goals.size(); i++) {
+                    int b = goals.getInt(i);
+                    if (row[b] == Double.POSITIVE_INFINITY) {
+                        row[b] = g;
+                        found++;
+                    }
+                }
+            }
+
+            int cx = BlockPos.unpackLongX(pos), cy = BlockPos.unpackLongY(pos), cz = BlockPos.unpackLongZ(pos);
+            int count = PathFinder.getNeighbors(view, cx, cy, cz, false, neighbors);
+            for (int i = 0; i < count; i++) {
+                long nb = neighbors[i];
+                int slot = nodes.findOrAdd(nb);
+                if (nodes.isClosed(slot)) continue;
+                double ng = g + PathFinder.moveCost(view, cx, cy, cz,
+                    BlockPos.unpackLongX(nb), BlockPos.unpackLongY(nb), BlockPos.unpackLongZ(nb));
+                if (ng < nodes.g(slot)) {
+                    nodes.set(slot, ng, current);
+                    open.push(slot, ng);
+                }
+            }
+        }
+    }
+
+    /**
+     * 2-opt and Or-opt passes over the open tour until neither finds an improvement.
+     * False if cancelled first.
+     */
+    private static boolean improve(int[] order, double[][] dist, BooleanSupplier cancelled) {
+        int n = order.length;
+        // Cost of walking order[0..k] forwards and backwards
+        double[] fwd = new double[n], bwd = new double[n];
+        prefixCosts(order, dist, fwd, bwd);
+        for (int pass = 0; pass < MAX_IMPROVE_PASSES; pass++) {
+            if (cancelled.getAsBoolean()) return false;
+            boolean improved = false;
+
+            // 2-opt: reverse order[i..j]
+            for (int i = 0; i < n - 1; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    if (reverseDelta(order, dist, fwd, bwd, i, j) < -1e-9) {
+                        for (int a = i, b = j; a < b; a++, b--) {
+                            int tmp = order[a]; order[a] = order[b]; order[b] = tmp;
+                        }
+                        prefixCosts(order, dist, fwd, bwd);
+                        improved = true;
+                    }
+                }
+            }
+
+            // Or-opt: move a run of 1-3 heads to another position
+            for (int len = 1; len <= 3; len++) {
+                for (int i = 0; i + len <= n; i++) {
+                    for (int to = 0; to <= n - len; to++) {
+                        if (to == i) continue;
+                        if (moveDelta(order, dist, i, len, to) < -1e-9) {
+                            moveSegment(order, i, len, to);
+                            prefixCosts(order, dist, fwd, bwd);
+                            improved = true;
+                        }
+                    }
+                }
+            }
+
+            if (!improved) break;
+        }
+        return true;
+    }
+
+    private static void prefixCosts(int[] order, double[][] dist, double[] fwd, double[] bwd) {
+        for (int k = 1; k < order.length; k++) {
+            fwd[k] = fwd[k - 1] + dist[order[k - 1]][order[k]];
+            bwd[k] = bwd[k - 1] + dist[order[k]][order[k - 1]];
+        }
+    }
+
+    /** Change in tour cost from reversing order[i..j]: its two end edges, and the run walked backwards. */
+    private static double reverseDelta(int[] order, double[][] dist, double[] fwd, double[] bwd, int i, int j) {
+        int prev = i == 0 ? 0 : order[i - 1];
+        double delta = dist[prev][order[j]] - dist[prev][order[i]] + (bwd[j] - bwd[i]) - (fwd[j] - fwd[i]);
+        if (j + 1 < order.length) delta += dist[order[i]][order[j + 1]] - dist[order[j]][order[j + 1]];
+        return delta;
+    }
+
+    /**
+     * Change in tour cost from taking order[i..i+len) out and reinserting it so it starts at
+     * index to of the result: the gap it leaves is closed, and the edge it goes into is split.
+     */
+    private static double moveDelta(int[] order, double[][] dist, int i, int len, int to) {
+        int n = order.length;
+        int prev = i == 0 ? 0 : order[i - 1];
+        int first = order[i], last = order[i + len - 1];
+        double delta = -dist[prev][first];
+        if (i + len < n) delta += dist[prev][order[i + len]] - dist[last][order[i + len]];
+        // Neighbours at the new position, indexed in the tour without the run
+        int before = to == 0 ? 0 : order[to - 1 < i ? to - 1 : to - 1 + len];
+        delta += dist[before][first];
+        if (to < n - len) {
+            int after = order[to < i ? to : to + len];
+            delta += dist[last][after] - dist[before][after];
+        }
+        return delta;
+    }
+
+    /** Moves order[i..i+len) in place so it starts at index to (len ≤ 3). */
+    private static void moveSegment(int[] order, int i, int len, int to) {
+        int[] run = Arrays.copyOfRange(order, i, i + len);
+        if (to < i) {
+            System.arraycopy(order, to, order, to + len, i - to);
+        } else {
+            System.arraycopy(order, i + len, order, i, to - i);
+        }
+        System.arraycopy(run, 0, order, to, len);
+    }
+
+    private static double tourCost(int[] order, double[][] dist) {
+        double cost = 0;
+        int at = 0;
+        for (int node : order) {
+            cost += dist[at][node];
+            at = node;
+        }
+        return cost;
+    }
+}
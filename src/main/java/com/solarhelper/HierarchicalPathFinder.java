@@ -0,0 +1,471 @@
+package com.solarhelper;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Hierarchical (HPA*) planner for long head-seek routes.
+ *
+ * The world is split into clusters, one per 16³ chunk section. A cluster's transitions are
+ * the walking moves that leave it, grouped into entrances (runs of adjacent boundary cells
+ * leading into the same neighbouring cluster) with one representative move kept per
+ * entrance. The two ends of those moves are the portal nodes, and a Dijkstra confined to
+ * each cluster gives the walking cost between every pair of its portals.
+ *
+ * A long route is planned on that small portal graph and then refined hop by hop with the
+ * normal block-level PathFinder search. Cluster data is cached between searches and only
+ * dropped for clusters near a block change; complete clusters are also kept on disk
+ * between sessions by NavMeshStore, checked against the sections they were built from.
+ *
+ * Walking only. All search state lives on the PathPlanner worker thread; the render thread
+ * only posts block changes to CHANGES.
+ */
+final class HierarchicalPathFinder {
+
+    // Abstract search stops once it's this close to the goal; the last stretch is a plain search
+    private static final double GOAL_RADIUS = 24.0;
+    private static final int MAX_ABSTRACT_ITERATIONS = 20_000;
+
+    /** Outgoing transitions of one cluster: from[i] (inside) → to[i] (a neighbouring cluster). */
+    record Transitions(long[] from, long[] to, double[] cost) {}
+
+    /** Portal nodes of one cluster and the confined walking cost between each pair (n × n, +∞ if none). */
+    record Intra(long[] nodes, double[] dist) {}
+
+    // ── Worker-thread state ──
+    private static final Long2ObjectOpenHashMap<Transitions> TRANSITIONS = new Long2ObjectOpenHashMap<>();
+    private static final Long2ObjectOpenHashMap<Intra> INTRA = new Long2ObjectOpenHashMap<>();
+    // Clusters too close to the snapshot edge to be complete; kept for one search only
+    private static final Long2ObjectOpenHashMap<Transitions> TRANSIENT_TRANSITIONS = new Long2ObjectOpenHashMap<>();
+    private static final Long2ObjectOpenHashMap<Intra> TRANSIENT_INTRA = new Long2ObjectOpenHashMap<>();
+    private static final PathNodeTable LOCAL_NODES = new PathNodeTable();
+    private static final NodeHeap LOCAL_OPEN = new NodeHeap();
+    private static final PathNodeTable ABSTRACT_NODES = new PathNodeTable();
+    private static final NodeHeap ABSTRACT_OPEN = new NodeHeap();
+    private static final long[] NEIGHBORS = new long[PathFinder.MAX_NEIGHBORS];
+
+    // Block changes posted by the render thread
+    static final BlockChangeQueue CHANGES = new BlockChangeQueue(4096);
+
+    private HierarchicalPathFinder() {}
+
+    // ── Search (worker thread) ──────────────────────────────────────────────
+
+    /**
+     * Plans a walking route from start to within reachDist of goal on the cluster graph
+     * and refines it with block-level searches. Returns null if no route was found (the
+     * caller should fall back to a plain search). snapshotSeq is BlockChangeQueue.currentSeq()
+     * as of when the snapshot was taken.
+     */
+    static List<BlockPos> findPath(PassabilitySnapshot view, BlockPos start, BlockPos goal, double reachDist,
+                                   long snapshotSeq, BooleanSupplier cancelled) {
+        // Changes newer than the snapshot must also be applied after this search, so
+        // nothing built from the (older) snapshot outlives them
+        boolean dropAll = CHANGES.takeOverflow();
+        if (dropAll) dropAll();
+        List<BlockChangeQueue.Change> newer = applyChanges(snapshotSeq);
+        try {
+            start = PathFinder.snapToGround(view, start, false);
+            List<BlockPos> route = abstractRoute(view, start, goal, cancelled);
+            if (route == null) return null;
+            return refine(view, route, goal, reachDist, cancelled);
+        } finally {
+            TRANSIENT_TRANSITIONS.clear();
+            TRANSIENT_INTRA.clear();
+            if (dropAll) dropAll();
+            for (BlockChangeQueue.Change c : newer) drop(c);
+            NavMeshStore.saveIfDue();
+        }
+    }
+
+    /** A* over portal nodes. Returns the portal waypoints from start to near the goal. */
+    private static List<BlockPos> abstractRoute(PassabilitySnapshot view, BlockPos start, BlockPos goal,
+                                                BooleanSupplier cancelled) {
+        PathNodeTable nodes = ABSTRACT_NODES;
+        NodeHeap open = ABSTRACT_OPEN;
+        nodes.clear();
+        open.clear();
+
+        int gx = goal.getX(), gy = goal.getY(), gz = goal.getZ();
+        long goalCluster = clusterOf(goal.asLong());
+
+        // Connect the start to the portals of its own cluster
+        long startPos = start.asLong();
+        long startCluster = clusterOf(startPos);
+        int startSlot = nodes.findOrAdd(startPos);
+        nodes.set(startSlot, 0, PathNodeTable.NONE);
+        Intra startIntra = intra(view, startCluster);
+        double[] fromStart = confinedCosts(view, startPos, startCluster, startIntra.nodes());
+        for (int i = 0; i < fromStart.length; i++) {
+            relax(nodes, open, startSlot, startIntra.nodes()[i], fromStart[i], gx, gy, gz);
+        }
+        // Transitions straight out of the start cell
+        relaxTransitions(view, nodes, open, startSlot, startPos, gx, gy, gz);
+
+        int iterations = 0;
+        while (!open.isEmpty() && iterations++ < MAX_ABSTRACT_ITERATIONS) {
+            if ((iterations & 63) == 0 && cancelled.getAsBoolean()) return null;
+
+            int current = open.pop();
+            nodes.close(current);
+            long pos = nodes.pos(current);
+            int px = BlockPos.unpackLongX(pos), py = BlockPos.unpackLongY(pos), pz = BlockPos.unpackLongZ(pos);
+
+            if (clusterOf(pos) == goalCluster
+                    || PathFinder.squaredDistance(px, py, pz, gx, gy, gz) <= GOAL_RADIUS * GOAL_RADIUS) {
+                List<BlockPos> route = new ArrayList<>();
+                for (int slot = current; slot != PathNodeTable.NONE; slot = nodes.parent(slot)) {
+                    route.add(BlockPos.fromLong(nodes.pos(slot)));
+                }
+                Collections.reverse(route);
+                return route;
+            }
+
+            // Other portals of the same cluster
+            long cluster = clusterOf(pos);
+            Intra in = intra(view, cluster);
+            int i = indexOf(in.nodes(), pos);
+            if (i >= 0) {
+                int n = in.nodes().length;
+                for (int j = 0; j < n; j++) {
+                    double d = in.dist()[i * n + j];
+                    if (j != i && d < Double.POSITIVE_INFINITY) {
+                        relax(nodes, open, current, in.nodes()[j], d, gx, gy, gz);
+                    }
+                }
+            }
+            // Moves into the neighbouring cluster
+            relaxTransitions(view, nodes, open, current, pos, gx, gy, gz);
+        }
+        return null;
+    }
+
+    private static void relaxTransitions(PassabilitySnapshot view, PathNodeTable nodes, NodeHeap open,
+                                         int fromSlot, long pos, int gx, int gy, int gz) {
+        Transitions t = transitions(view, clusterOf(pos));
+        for (int k = 0; k < t.from().length; k++) {
+            if (t.from()[k] == pos) relax(nodes, open, fromSlot, t.to()[k], t.cost()[k], gx, gy, gz);
+        }
+    }
+
+    private static void relax(PathNodeTable nodes, NodeHeap open, int fromSlot, long to, double cost,
+                              int gx, int gy, int gz) {
+        if (cost == Double.POSITIVE_INFINITY) return;
+        double newG = nodes.g(fromSlot) + cost;
+        int slot = nodes.findOrAdd(to);
+        if (newG < nodes.g(slot)) {
+            nodes.set(slot, newG, fromSlot);
+            open.push(slot, newG + PathFinder.heuristic(to, gx, gy, gz));
+        }
+    }
+
+    /** Turns portal waypoints into a block-level path with one plain search per hop. */
+    private static List<BlockPos> refine(PassabilitySnapshot view, List<BlockPos> route, BlockPos goal,
+                                         double reachDist, BooleanSupplier cancelled) {
+        List<BlockPos> path = new ArrayList<>();
+        path.add(route.get(0));
+        for (int i = 1; i < route.size(); i++) {
+            List<BlockPos> hop = PathFinder.findPath(view, route.get(i - 1), route.get(i), false, 0.0, cancelled);
+            if (hop == null) return null;
+            path.addAll(hop.subList(1, hop.size()));
+        }
+        List<BlockPos> last = PathFinder.findPath(view, route.get(route.size() - 1), goal, false, reachDist, cancelled);
+        if (last == null) return null;
+        path.addAll(last.subList(1, last.size()));
+        return path;
+    }
+
+    // ── Cluster data ────────────────────────────────────────────────────────
+
+    private static Transitions transitions(PassabilitySnapshot view, long cluster) {
+        Transitions t = TRANSITIONS.get(cluster);
+        if (t == null) t = TRANSIENT_TRANSITIONS.get(cluster);
+        if (t != null) return t;
+
+        // Transitions look one block past the cluster edge, so they're only complete if
+        // every neighbouring section was captured
+        if (view.covers(sx(cluster), sy(cluster), sz(cluster), 1)) {
+            long hash = neighbourhoodHash(view, cluster, 1);
+            t = NavMeshStore.transitions(cluster, hash);
+            if (t == null) {
+                t = buildTransitions(view, cluster);
+                NavMeshStore.putTransitions(cluster, hash, t);
+            }
+            TRANSITIONS.put(cluster, t);
+        } else {
+            t = buildTransitions(view, cluster);
+            TRANSIENT_TRANSITIONS.put(cluster, t);
+        }
+        return t;
+    }
+
+    private static Intra intra(PassabilitySnapshot view, long cluster) {
+        Intra in = INTRA.get(cluster);
+        if (in == null) in = TRANSIENT_INTRA.get(cluster);
+        if (in != null) return in;
+
+        // Portal set depends on the neighbours' transitions, which look one further out
+        if (view.covers(sx(cluster), sy(cluster), sz(cluster), 2)) {
+            long hash = neighbourhoodHash(view, cluster, 2);
+            in = NavMeshStore.intra(cluster, hash);
+            if (in == null) {
+                in = buildIntra(view, cluster);
+                NavMeshStore.putIntra(cluster, hash, in);
+            }
+            INTRA.put(cluster, in);
+        } else {
+            in = buildIntra(view, cluster);
+            TRANSIENT_INTRA.put(cluster, in);
+        }
+        return in;
+    }
+
+    /** Combined hash of the sections within radius of a cluster: everything its data is built from. */
+    private static long neighbourhoodHash(PassabilitySnapshot view, long cluster, int radius) {
+        long h = 17;
+        for (int dy = -radius; dy <= radius; dy++) {
+            for (int dz = -radius; dz <= radius; dz++) {
+                for (int dx = -radius; dx <= radius; dx++) {
+                    h = h * 31 + view.sectionHash(sx(cluster) + dx, sy(cluster) + dy, sz(cluster) + dz);
+                }
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Finds every walking move that leaves the cluster, groups them into entrances
+     * (same target cluster, source cells touching each other) and keeps the move
+     * nearest the middle of each entrance.
+     */
+    private static Transitions buildTransitions(PassabilitySnapshot view, long cluster) {
+        int baseX = sx(cluster) << 4, baseY = sy(cluster) << 4, baseZ = sz(cluster) << 4;
+        LongArrayList from = new LongArrayList();
+        LongArrayList to = new LongArrayList();
+        DoubleArrayList cost = new DoubleArrayList();
+
+        for (int ly = 0; ly < 16; ly++) {
+            for (int lz = 0; lz < 16; lz++) {
+                for (int lx = 0; lx < 16; lx++) {
+                    // Only cells near a face can have a move that leaves the cluster
+                    // (a step or gap jump of up to MOVE_REACH, 1 up, or a drop of up to 3)
+                    int reach = PathFinder.MOVE_REACH;
+                    boolean nearFace = lx < reach || lx >= 16 - reach || lz < reach || lz >= 16 - reach
+                        || ly <= 3 || ly >= 15;
+                    if (!nearFace) continue;
+                    int x = baseX + lx, y = baseY + ly, z = baseZ + lz;
+                    if (!view.isStandable(x, y, z)) continue;
+                    int count = PathFinder.getNeighbors(view, x, y, z, false, NEIGHBORS);
+                    for (int i = 0; i < count; i++) {
+                        long np = NEIGHBORS[i];
+                        if (clusterOf(np) == cluster) continue;
+                        from.add(BlockPos.asLong(x, y, z));
+                        to.add(np);
+                        cost.add(PathFinder.moveCost(view, x, y, z,
+                            BlockPos.unpackLongX(np), BlockPos.unpackLongY(np), BlockPos.unpackLongZ(np)));
+                    }
+                }
+            }
+        }
+
+        int m = from.size();
+        int[] group = new int[m];
+        for (int i = 0; i < m; i++) group[i] = i;
+        for (int i = 0; i < m; i++) {
+            for (int j = i + 1; j < m; j++) {
+                if (clusterOf(to.getLong(i)) == clusterOf(to.getLong(j)) && touching(from.getLong(i), from.getLong(j))) {
+                    group[find(group, i)] = find(group, j);
+                }
+            }
+        }
+
+        // Centroid of each entrance's source cells, then the move closest to it
+        Map<Integer, double[]> centroid = new HashMap<>();
+        for (int i = 0; i < m; i++) {
+            double[] c = centroid.computeIfAbsent(find(group, i), k -> new double[4]);
+            long p = from.getLong(i);
+            c[0] += BlockPos.unpackLongX(p);
+            c[1] += BlockPos.unpackLongY(p);
+            c[2] += BlockPos.unpackLongZ(p);
+            c[3]++;
+        }
+        Map<Integer, Integer> best = new TreeMap<>();
+        Map<Integer, Double> bestDist = new HashMap<>();
+        for (int i = 0; i < m; i++) {
+            int root = find(group, i);
+            double[] c = centroid.get(root);
+            long p = from.getLong(i);
+            double dx = BlockPos.unpackLongX(p) - c[0] / c[3];
+            double dy = BlockPos.unpackLongY(p) - c[1] / c[3];
+            double dz = BlockPos.unpackLongZ(p) - c[2] / c[3];
+            double d = dx * dx + dy * dy + dz * dz;
+            if (d < bestDist.getOrDefault(root, Double.MAX_VALUE)) {
+                bestDist.put(root, d);
+                best.put(root, i);
+            }
+        }
+
+        int k = best.size();
+        long[] f = new long[k], t = new long[k];
+        double[] c = new double[k];
+        int idx = 0;
+        for (int i : best.values()) {
+            f[idx] = from.getLong(i);
+            t[idx] = to.getLong(i);
+            c[idx] = cost.getDouble(i);
+            idx++;
+        }
+        return new Transitions(f, t, c);
+    }
+
+    /** Portals = own transition sources + neighbours' transition targets that land here. */
+    private static Intra buildIntra(PassabilitySnapshot view, long cluster) {
+        LongOpenHashSet set = new LongOpenHashSet();
+        for (long p : transitions(view, cluster).from()) set.add(p);
+
+        int csx = sx(cluster), csy = sy(cluster), csz = sz(cluster);
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    if (dx == 0 && dy == 0 && dz == 0) continue;
+                    Transitions t = transitions(view, ChunkSectionPos.asLong(csx + dx, csy + dy, csz + dz));
+                    for (long p : t.to()) {
+                        if (clusterOf(p) == cluster) set.add(p);
+                    }
+                }
+            }
+        }
+
+        long[] portals = set.toLongArray();
+        Arrays.sort(portals); // stable order → deterministic routes
+        int n = portals.length;
+        double[] dist = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            double[] row = confinedCosts(view, portals[i], cluster, portals);
+            System.arraycopy(row, 0, dist, i * n, n);
+        }
+        return new Intra(portals, dist);
+    }
+
+    /** Dijkstra from source that never leaves the cluster; returns the cost to each target (+∞ if unreached). */
+    private static double[] confinedCosts(PassabilitySnapshot view, long source, long cluster, long[] targets) {
+        double[] out = new double[targets.length];
+        Arrays.fill(out, Double.POSITIVE_INFINITY);
+        int remaining = targets.length;
+
+        PathNodeTable nodes = LOCAL_NODES;
+        NodeHeap open = LOCAL_OPEN;
+        nodes.clear();
+        open.clear();
+        int startSlot = nodes.findOrAdd(source);
+        nodes.set(startSlot, 0, PathNodeTable.NONE);
+        open.push(startSlot, 0);
+
+        while (!open.isEmpty() && remaining > 0) {
+            int current = open.pop();
+            nodes.close(current);
+            long pos = nodes.pos(current);
+            double g = nodes.g(current);
+
+            int t = indexOf(targets, pos);
+            if (t >= 0 && out[t] == Double.POSITIVE_INFINITY) {
+                out[t] = g;
+                remaining--;
+            }
+
+            int x = BlockPos.unpackLongX(pos), y = BlockPos.unpackLongY(pos), z = BlockPos.unpackLongZ(pos);
+            int count = PathFinder.getNeighbors(view, x, y, z, false, NEIGHBORS);
+            for (int i = 0; i < count; i++) {
+                long np = NEIGHBORS[i];
+                if (clusterOf(np) != cluster) continue;
+                int slot = nodes.findOrAdd(np);
+                double newG = g + PathFinder.moveCost(view, x, y, z,
+                    BlockPos.unpackLongX(np), BlockPos.unpackLongY(np), BlockPos.unpackLongZ(np));
+                if (newG < nodes.g(slot)) {
+                    nodes.set(slot, newG, current);
+                    open.push(slot, newG);
+                }
+            }
+        }
+        return out;
+    }
+
+    // ── Invalidation (worker thread) ────────────────────────────────────────
+
+    /** Applies every posted change; returns those newer than snapshotSeq so they can be re-applied later. */
+    private static List<BlockChangeQueue.Change> applyChanges(long snapshotSeq) {
+        List<BlockChangeQueue.Change> newer = new ArrayList<>();
+        for (BlockChangeQueue.Change c : CHANGES.drain()) {
+            drop(c);
+            if (c.seq() > snapshotSeq) newer.add(c);
+        }
+        return newer;
+    }
+
+    /**
+     * Transitions read one block past their cluster, so a change drops those of the
+     * clusters next to it; portal sets depend on neighbouring transitions, so one ring further.
+     */
+    private static void drop(BlockChangeQueue.Change c) {
+        if (c.column()) {
+            int cx = c.x(), cz = c.z();
+            TRANSITIONS.keySet().removeIf((long k) -> Math.abs(sx(k) - cx) <= 1 && Math.abs(sz(k) - cz) <= 1);
+            INTRA.keySet().removeIf((long k) -> Math.abs(sx(k) - cx) <= 2 && Math.abs(sz(k) - cz) <= 2);
+        } else {
+            int csx = c.x() >> 4, csy = c.y() >> 4, csz = c.z() >> 4;
+            for (int dx = -2; dx <= 2; dx++) {
+                for (int dy = -2; dy <= 2; dy++) {
+                    for (int dz = -2; dz <= 2; dz++) {
+                        long key = ChunkSectionPos.asLong(csx + dx, csy + dy, csz + dz);
+                        INTRA.remove(key);
+                        if (Math.abs(dx) <= 1 && Math.abs(dy) <= 1 && Math.abs(dz) <= 1) TRANSITIONS.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void dropAll() {
+        TRANSITIONS.clear();
+        INTRA.clear();
+    }
+
+    // ── Helpers ─────────────────────────────────────────────────────────────
+
+    private static long clusterOf(long blockPos) {
+        return ChunkSectionPos.asLong(
+            BlockPos.unpackLongX(blockPos) >> 4, BlockPos.unpackLongY(blockPos) >> 4, BlockPos.unpackLongZ(blockPos) >> 4);
+    }
+
+    private static int sx(long cluster) { return ChunkSectionPos.unpackX(cluster); }
+    private static int sy(long cluster) { return ChunkSectionPos.unpackY(cluster); }
+    private static int sz(long cluster) { return ChunkSectionPos.unpackZ(cluster); }
+
+    private static boolean touching(long a, long b) {
+        return Math.abs(BlockPos.unpackLongX(a) - BlockPos.unpackLongX(b)) <= 1
+            && Math.abs(BlockPos.unpackLongY(a) - BlockPos.unpackLongY(b)) <= 1
+            && Math.abs(BlockPos.unpackLongZ(a) - BlockPos.unpackLongZ(b)) <= 1;
+    }
+
+    private static int find(int[] group, int i) {
+        while (group[i] != i) {
+            group[i] = group[group[i]];
+            i = group[i];
+        }
+        return i;
+    }
+
+    private static int indexOf(long[] array, long value) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == value) return i;
+        }
+        return -1;
+    }
+}
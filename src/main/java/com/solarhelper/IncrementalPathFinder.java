@@ -0,0 +1,303 @@
+package com.solarhelper;
+
+import it.unimi.dsi.fastutil.longs.Long2DoubleOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Incremental (D* Lite) planner for replanning toward the same head.
+ *
+ * The search runs backwards from the cells within reach of the goal, so its tree of
+ * cost-to-goal values stays valid as the player walks. When edge costs change — a block
+ * changed near nodes the tree already covers, or the seeker got stuck on a step — only
+ * the affected nodes are re-queued and the search repairs the tree from there, instead of
+ * starting over like PathFinder.findPath does.
+ *
+ * The tree is kept until the goal, flying mode, reach or snapshot box changes. The caller
+ * must search the same box each time (PathPlanner keeps it per target): cells outside the
+ * box read as solid, so a different box would change costs without any change event.
+ *
+ * All state lives on the PathPlanner worker thread; the render thread only posts block
+ * changes to CHANGES.
+ */
+final class IncrementalPathFinder {
+
+    // Node expansions allowed per call. A search that runs out keeps its queue, so the
+    // next call for the same target carries on where this one stopped.
+    private static final int MAX_EXPANSIONS = 3000;
+    // Drop the tree once it gets this big rather than keep growing it
+    private static final int MAX_NODES = 200_000;
+    // Extra cost of entering a cell the seeker got stuck walking into; adds up on repeats
+    private static final double STUCK_PENALTY = 8.0;
+    // Second key component, folded into the single heap key as a tie-breaker
+    private static final double KEY_TIE = 1e-6;
+    private static final int CANCEL_CHECK_INTERVAL = 64;
+    private static final int MAX_PATH_LENGTH = 4096;
+
+    // ── Worker-thread state ──
+    private static final PathNodeTable NODES = new PathNodeTable(); // g lives in the table
+    private static final NodeHeap OPEN = new NodeHeap();
+    private static double[] rhs = new double[4096];
+    private static final Long2DoubleOpenHashMap PENALTIES = new Long2DoubleOpenHashMap();
+    private static final List<BlockChangeQueue.Change> DEFERRED = new ArrayList<>();
+    private static final long[] NEIGHBORS = new long[PathFinder.MAX_NEIGHBORS];
+    private static final long[] PREDECESSORS = new long[PathFinder.MAX_NEIGHBORS];
+
+    private static boolean valid = false;
+    private static int[] lastBox;
+    private static BlockPos goal;
+    private static boolean canFly;
+    private static double reachSq;
+    private static BlockPos lastStart;
+    private static double km;
+
+    // Block changes posted by the render thread
+    static final BlockChangeQueue CHANGES = new BlockChangeQueue(4096);
+
+    private IncrementalPathFinder() {}
+
+    /**
+     * Plans (or repairs the plan) from start to within reachDist of goal.
+     * box identifies the snapshot box: PathPlanner passes the same array for as long as it
+     * keeps the box, and a different one starts a fresh tree.
+     * If stuck is true, the step the current plan takes out of start is penalised first,
+     * since the seeker couldn't walk it. Returns a simplified path, or null if none was
+     * found within this call's budget.
+     */
+    static List<BlockPos> findPath(PassabilityView view, BlockPos start, BlockPos goalPos, boolean fly,
+                                   double reachDist, int[] box, boolean stuck,
+                                   long snapshotSeq, BooleanSupplier cancelled) {
+        start = PathFinder.snapToGround(view, start, fly);
+        if (start == null) return null;
+
+        // An overflow can't be ordered against the snapshot: rebuild now and again next call
+        boolean overflow = CHANGES.takeOverflow();
+        if (overflow || box != lastBox || !valid || !goalPos.equals(goal) || fly != canFly
+                || reachDist * reachDist != reachSq || NODES.size() > MAX_NODES) {
+            init(goalPos, fly, reachDist, start, snapshotSeq);
+            lastBox = box;
+        } else {
+            // The player moved: keys already queued were computed against the old start
+            km += heuristic(lastStart.asLong(), start);
+            lastStart = start;
+            applyChanges(view, snapshotSeq);
+        }
+        valid = !overflow;
+
+        if (stuck) penaliseNextStep(view, start);
+        if (!computeShortestPath(view, start, cancelled)) return null;
+        return extractPath(view, start);
+    }
+
+    /** Starts a fresh tree: every cell within reach of the goal is a goal with cost 0. */
+    private static void init(BlockPos goalPos, boolean fly, double reachDist, BlockPos start, long snapshotSeq) {
+        NODES.clear();
+        OPEN.clear();
+        PENALTIES.clear();
+        DEFERRED.clear();
+        // Changes up to snapshotSeq are already in the snapshot we're about to search
+        for (BlockChangeQueue.Change c : CHANGES.drain()) {
+            if (c.seq() > snapshotSeq) DEFERRED.add(c);
+        }
+        goal = goalPos;
+        canFly = fly;
+        reachSq = reachDist * reachDist;
+        lastStart = start;
+        km = 0;
+
+        int r = (int) Math.ceil(reachDist);
+        for (int dx = -r; dx <= r; dx++) {
+            for (int dy = -r; dy <= r; dy++) {
+                for (int dz = -r; dz <= r; dz++) {
+                    if (dx * dx + dy * dy + dz * dz > reachSq) continue;
+                    long pos = BlockPos.asLong(goal.getX() + dx, goal.getY() + dy, goal.getZ() + dz);
+                    int slot = slot(pos);
+                    rhs[slot] = 0;
+                    OPEN.update(slot, key(slot, start));
+                }
+            }
+        }
+    }
+
+    // ── Edge cost changes ───────────────────────────────────────────────────
+
+    /**
+     * Re-queues nodes whose moves may have changed. Only changes the snapshot already
+     * contains are applied; newer ones wait for the next call, whose snapshot will have them.
+     */
+    private static void applyChanges(PassabilityView view, long snapshotSeq) {
+        DEFERRED.addAll(CHANGES.drain());
+        Iterator<BlockChangeQueue.Change> it = DEFERRED.iterator();
+        while (it.hasNext()) {
+            BlockChangeQueue.Change c = it.next();
+            if (c.seq() > snapshotSeq) continue;
+            it.remove();
+            if (c.column()) {
+                int reach = PathFinder.MOVE_REACH + 1;
+                int minX = (c.x() << 4) - reach, maxX = (c.x() << 4) + 15 + reach;
+                int minZ = (c.z() << 4) - reach, maxZ = (c.z() << 4) + 15 + reach;
+                for (int slot = 0, n = NODES.size(); slot < n; slot++) {
+                    long pos = NODES.pos(slot);
+                    int x = BlockPos.unpackLongX(pos), z = BlockPos.unpackLongZ(pos);
+                    if (x >= minX && x <= maxX && z >= minZ && z <= maxZ) updateVertex(view, slot);
+                }
+            } else {
+                // getNeighbors reads up to MOVE_REACH columns over (a gap jump), from four
+                // below the feet to two above, so a block affects the moves of nodes from two
+                // below it to four above
+                int reach = PathFinder.MOVE_REACH;
+                for (int dx = -reach; dx <= reach; dx++) {
+                    for (int dy = -2; dy <= 4; dy++) {
+                        for (int dz = -reach; dz <= reach; dz++) {
+                            int slot = NODES.find(BlockPos.asLong(c.x() + dx, c.y() + dy, c.z() + dz));
+                            if (slot != PathNodeTable.NONE) updateVertex(view, slot);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /** Makes the step the plan takes out of start more expensive and re-queues the moves into it. */
+    private static void penaliseNextStep(PassabilityView view, BlockPos start) {
+        long startPos = start.asLong();
+        if (NODES.find(startPos) == PathNodeTable.NONE || isGoal(startPos)) return;
+        int nextSlot = bestSuccessor(view, startPos);
+        if (nextSlot == PathNodeTable.NONE) return;
+
+        long next = NODES.pos(nextSlot);
+        PENALTIES.addTo(next, STUCK_PENALTY);
+        int count = PathFinder.getPredecessors(view, BlockPos.unpackLongX(next), BlockPos.unpackLongY(next),
+            BlockPos.unpackLongZ(next), canFly, PREDECESSORS);
+        for (int i = 0; i < count; i++) {
+            int slot = NODES.find(PREDECESSORS[i]);
+            if (slot != PathNodeTable.NONE) updateVertex(view, slot);
+        }
+    }
+
+    // ── D* Lite core ────────────────────────────────────────────────────────
+
+    /** Runs until start is consistent; false if cancelled or out of budget. */
+    private static boolean computeShortestPath(PassabilityView view, BlockPos start, BooleanSupplier cancelled) {
+        int startSlot = slot(start.asLong());
+        int expansions = 0;
+        while (!OPEN.isEmpty()
+                && (OPEN.peekKey() < key(startSlot, start) || rhs[startSlot] != NODES.g(startSlot))) {
+            if (++expansions > MAX_EXPANSIONS) return false;
+            if (expansions % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) return false;
+
+            double oldKey = OPEN.peekKey();
+            int u = OPEN.pop();
+            double newKey = key(u, start);
+            if (oldKey < newKey) {
+                OPEN.update(u, newKey); // km grew since this was queued
+                continue;
+            }
+
+            long pos = NODES.pos(u);
+            if (NODES.g(u) > rhs[u]) {
+                NODES.set(u, rhs[u], PathNodeTable.NONE);
+            } else {
+                NODES.set(u, Double.POSITIVE_INFINITY, PathNodeTable.NONE);
+                updateVertex(view, u);
+            }
+            // updateVertex uses NEIGHBORS, so predecessors get their own buffer
+            int count = PathFinder.getPredecessors(view, BlockPos.unpackLongX(pos), BlockPos.unpackLongY(pos),
+                BlockPos.unpackLongZ(pos), canFly, PREDECESSORS);
+            for (int i = 0; i < count; i++) {
+                updateVertex(view, slot(PREDECESSORS[i]));
+            }
+        }
+        return rhs[startSlot] < Double.POSITIVE_INFINITY;
+    }
+
+    /** Recomputes a node's one-step lookahead cost and re-queues it if it is inconsistent. */
+    private static void updateVertex(PassabilityView view, int slot) {
+        long u = NODES.pos(slot);
+        if (!isGoal(u)) {
+            double best = Double.POSITIVE_INFINITY;
+            int count = PathFinder.getNeighbors(view, BlockPos.unpackLongX(u), BlockPos.unpackLongY(u),
+                BlockPos.unpackLongZ(u), canFly, NEIGHBORS);
+            for (int i = 0; i < count; i++) {
+                int sSlot = NODES.find(NEIGHBORS[i]);
+                if (sSlot == PathNodeTable.NONE) continue; // g = +∞
+                best = Math.min(best, cost(view, u, NEIGHBORS[i]) + NODES.g(sSlot));
+            }
+            rhs[slot] = best;
+        }
+        OPEN.remove(slot);
+        if (NODES.g(slot) != rhs[slot]) OPEN.update(slot, key(slot, lastStart));
+    }
+
+    /** Walks the tree from start, always taking the cheapest move, until a goal cell. */
+    private static List<BlockPos> extractPath(PassabilityView view, BlockPos start) {
+        List<BlockPos> path = new ArrayList<>();
+        LongOpenHashSet seen = new LongOpenHashSet();
+        long current = start.asLong();
+        path.add(start);
+        seen.add(current);
+        while (!isGoal(current)) {
+            int next = bestSuccessor(view, current);
+            // Dead end or loop means the tree isn't consistent here; let the caller retry
+            if (next == PathNodeTable.NONE) return null;
+            current = NODES.pos(next);
+            if (!seen.add(current) || path.size() >= MAX_PATH_LENGTH) return null;
+            path.add(BlockPos.fromLong(current));
+        }
+        return PathFinder.smoothPath(view, path);
+    }
+
+    /** Slot of the move out of from with the lowest cost-to-goal, or NONE if there is none. */
+    private static int bestSuccessor(PassabilityView view, long from) {
+        int best = PathNodeTable.NONE;
+        double bestCost = Double.POSITIVE_INFINITY;
+        int count = PathFinder.getNeighbors(view, BlockPos.unpackLongX(from), BlockPos.unpackLongY(from),
+            BlockPos.unpackLongZ(from), canFly, NEIGHBORS);
+        for (int i = 0; i < count; i++) {
+            int slot = NODES.find(NEIGHBORS[i]);
+            if (slot == PathNodeTable.NONE) continue;
+            double c = cost(view, from, NEIGHBORS[i]) + NODES.g(slot);
+            if (c < bestCost) {
+                bestCost = c;
+                best = slot;
+            }
+        }
+        return best;
+    }
+
+    // ── Helpers ─────────────────────────────────────────────────────────────
+
+    private static double cost(PassabilityView view, long from, long to) {
+        return PathFinder.moveCost(view, BlockPos.unpackLongX(from), BlockPos.unpackLongY(from), BlockPos.unpackLongZ(from),
+            BlockPos.unpackLongX(to), BlockPos.unpackLongY(to), BlockPos.unpackLongZ(to)) + PENALTIES.get(to);
+    }
+
+    /** D* Lite key [min(g, rhs) + h + km, min(g, rhs)], folded into one double. */
+    private static double key(int slot, BlockPos start) {
+        double m = Math.min(NODES.g(slot), rhs[slot]);
+        return m + heuristic(NODES.pos(slot), start) + km + m * KEY_TIE;
+    }
+
+    private static double heuristic(long pos, BlockPos start) {
+        return PathFinder.heuristic(pos, start.getX(), start.getY(), start.getZ());
+    }
+
+    private static boolean isGoal(long pos) {
+        return PathFinder.squaredDistance(BlockPos.unpackLongX(pos), BlockPos.unpackLongY(pos), BlockPos.unpackLongZ(pos),
+            goal.getX(), goal.getY(), goal.getZ()) <= reachSq;
+    }
+
+    /** Slot for a position, creating it with g = rhs = +∞. */
+    private static int slot(long pos) {
+        int before = NODES.size();
+        int slot = NODES.findOrAdd(pos);
+        if (NODES.size() != before) {
+            if (slot >= rhs.length) rhs = Arrays.copyOf(rhs, Math.max(rhs.length * 2, slot + 1));
+            rhs[slot] = Double.POSITIVE_INFINITY;
+        }
+        return slot;
+    }
+}
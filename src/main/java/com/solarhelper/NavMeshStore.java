@@ -0,0 +1,203 @@
+package com.solarhelper;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.network.ServerInfo;
+import net.minecraft.client.world.ClientWorld;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps HierarchicalPathFinder's cluster graph — each chunk section's entrances and the
+ * walking costs between its portals — on disk between sessions, one file per server and
+ * dimension under config/solarhelper/navmesh.
+ *
+ * Every cluster is stored with a hash of the passability of the sections its data was
+ * built from (its neighbours out to one section for transitions, two for portal costs).
+ * A stored cluster is only used while that hash still matches the world as loaded now;
+ * otherwise it is rebuilt and the stored copy replaced. Islands and hubs that haven't
+ * changed since the last visit start with a ready-made graph.
+ *
+ * Worker thread only: PathPlanner posts open() and save() to its worker, next to the searches.
+ */
+final class NavMeshStore {
+
+    private static final int MAGIC = 0x53484E4D; // "SHNM"
+    // Bump when the move model or the cluster data changes; files of other versions are ignored
+    private static final int VERSION = 3;
+    // Cap on stored clusters of each kind, so one huge world can't grow the file without bound
+    private static final int MAX_CLUSTERS = 16_384;
+    private static final long SAVE_INTERVAL_MS = 60_000L;
+    private static final Path DIR = FabricLoader.getInstance().getConfigDir().resolve("solarhelper").resolve("navmesh");
+
+    private record Stored<T>(long hash, T data) {}
+
+    private static final Long2ObjectOpenHashMap<Stored<HierarchicalPathFinder.Transitions>> TRANSITIONS =
+        new Long2ObjectOpenHashMap<>();
+    private static final Long2ObjectOpenHashMap<Stored<HierarchicalPathFinder.Intra>> INTRA =
+        new Long2ObjectOpenHashMap<>();
+
+    private static String key = null;
+    private static boolean dirty = false;
+    private static long lastSave = 0;
+
+    private NavMeshStore() {}
+
+    // ── Keys (render thread) ────────────────────────────────────────────────
+
+    /** File key for a world: server address (or singleplayer save name) plus dimension. */
+    static String keyFor(ClientWorld world) {
+        MinecraftClient client = MinecraftClient.getInstance();
+        ServerInfo server = client.getCurrentServerEntry();
+        String host;
+        if (server != null) host = server.address;
+        else if (client.getServer() != null) host = "local-" + client.getServer().getSaveProperties().getLevelName();
+        else host = "unknown";
+        String dimension = world.getRegistryKey().getValue().toString();
+        return (host + "_" + dimension).replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    // ── Lookup ──────────────────────────────────────────────────────────────
+
+    /** The stored transitions of a cluster if they were built from passability with this hash, else null. */
+    static HierarchicalPathFinder.Transitions transitions(long cluster, long hash) {
+        Stored<HierarchicalPathFinder.Transitions> s = TRANSITIONS.get(cluster);
+        return s != null && s.hash() == hash ? s.data() : null;
+    }
+
+    /** The stored portal costs of a cluster if they were built from passability with this hash, else null. */
+    static HierarchicalPathFinder.Intra intra(long cluster, long hash) {
+        Stored<HierarchicalPathFinder.Intra> s = INTRA.get(cluster);
+        return s != null && s.hash() == hash ? s.data() : null;
+    }
+
+    static void putTransitions(long cluster, long hash, HierarchicalPathFinder.Transitions t) {
+        if (key == null || (TRANSITIONS.size() >= MAX_CLUSTERS && !TRANSITIONS.containsKey(cluster))) return;
+        TRANSITIONS.put(cluster, new Stored<>(hash, t));
+        dirty = true;
+    }
+
+    static void putIntra(long cluster, long hash, HierarchicalPathFinder.Intra in) {
+        if (key == null || (INTRA.size() >= MAX_CLUSTERS && !INTRA.containsKey(cluster))) return;
+        INTRA.put(cluster, new Stored<>(hash, in));
+        dirty = true;
+    }
+
+    // ── Files ───────────────────────────────────────────────────────────────
+
+    /** Saves the current world's graph if it changed, then loads the one stored for newKey. */
+    static void open(String newKey) {
+        if (newKey.equals(key)) return;
+        save();
+        TRANSITIONS.clear();
+        INTRA.clear();
+        key = newKey;
+        dirty = false;
+        lastSave = System.currentTimeMillis();
+
+        Path file = file(newKey);
+        if (!Files.exists(file)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return;
+            for (int i = 0, n = in.readInt(); i < n; i++) {
+                long cluster = in.readLong(), hash = in.readLong();
+                TRANSITIONS.put(cluster, new Stored<>(hash, readTransitions(in)));
+            }
+            for (int i = 0, n = in.readInt(); i < n; i++) {
+                long cluster = in.readLong(), hash = in.readLong();
+                INTRA.put(cluster, new Stored<>(hash, readIntra(in)));
+            }
+            SolarHelperClient.LOGGER.info("Loaded navigation mesh {} ({} clusters)", newKey, INTRA.size());
+        } catch (IOException | RuntimeException e) {
+            SolarHelperClient.LOGGER.warn("Ignoring unreadable navigation mesh {}", file, e);
+            TRANSITIONS.clear();
+            INTRA.clear();
+        }
+    }
+
+    /** Saves if anything changed and SAVE_INTERVAL_MS has passed since the last save. */
+    static void saveIfDue() {
+        if (dirty && System.currentTimeMillis() - lastSave >= SAVE_INTERVAL_MS) save();
+    }
+
+    /** Writes the current world's graph if anything changed since it was loaded or saved. */
+    static void save() {
+        if (key == null || !dirty) return;
+        Path file = file(key);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(DIR);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(TRANSITIONS.size());
+                for (Long2ObjectMap.Entry<Stored<HierarchicalPathFinder.Transitions>> e : TRANSITIONS.long2ObjectEntrySet()) {
+                    out.writeLong(e.getLongKey());
+                    out.writeLong(e.getValue().hash());
+                    writeTransitions(out, e.getValue().data());
+                }
+                out.writeInt(INTRA.size());
+                for (Long2ObjectMap.Entry<Stored<HierarchicalPathFinder.Intra>> e : INTRA.long2ObjectEntrySet()) {
+                    out.writeLong(e.getLongKey());
+                    out.writeLong(e.getValue().hash());
+                    writeIntra(out, e.getValue().data());
+                }
+            }
+            // Replace in one step so a crash mid-write never leaves a truncated file behind
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            SolarHelperClient.LOGGER.warn("Failed to save navigation mesh {}", file, e);
+        }
+        lastSave = System.currentTimeMillis();
+    }
+
+    private static Path file(String key) {
+        return DIR.resolve(key + ".bin");
+    }
+
+    private static void writeTransitions(DataOutputStream out, HierarchicalPathFinder.Transitions t) throws IOException {
+        out.writeInt(t.from().length);
+        for (int i = 0; i < t.from().length; i++) {
+            out.writeLong(t.from()[i]);
+            out.writeLong(t.to()[i]);
+            out.writeDouble(t.cost()[i]);
+        }
+    }
+
+    private static HierarchicalPathFinder.Transitions readTransitions(DataInputStream in) throws IOException {
+        int k = in.readInt();
+        if (k < 0 || k > 65_536) throw new IOException("Bad transition count " + k);
+        long[] from = new long[k], to = new long[k];
+        double[] cost = new double[k];
+        for (int i = 0; i < k; i++) {
+            from[i] = in.readLong();
+            to[i] = in.readLong();
+            cost[i] = in.readDouble();
+        }
+        return new HierarchicalPathFinder.Transitions(from, to, cost);
+    }
+
+    private static void writeIntra(DataOutputStream out, HierarchicalPathFinder.Intra in) throws IOException {
+        out.writeInt(in.nodes().length);
+        for (long p : in.nodes()) out.writeLong(p);
+        for (double d : in.dist()) out.writeDouble(d);
+    }
+
+    private static HierarchicalPathFinder.Intra readIntra(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        if (n < 0 || n > 4_096) throw new IOException("Bad portal count " + n);
+        long[] nodes = new long[n];
+        double[] dist = new double[n * n];
+        for (int i = 0; i < n; i++) nodes[i] = in.readLong();
+        for (int i = 0; i < n * n; i++) dist[i] = in.readDouble();
+        return new HierarchicalPathFinder.Intra(nodes, dist);
+    }
+}
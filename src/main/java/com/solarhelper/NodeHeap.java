@@ -0,0 +1,172 @@
+package com.solarhelper;
+
+import java.util.Arrays;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Indexed binary min-heap of node slots, used as the A* open set (and as the
+ * D* Lite priority queue by IncrementalPathFinder).
+ *
+ * Each slot is in the heap at most once: pushing a slot that is already queued
+ * lowers its key in place (decrease-key) instead of adding a duplicate entry, so
+ * the open set never holds stale entries. Keys and heap positions are tracked per
+ * slot in primitive arrays that are reused between searches.
+ */
+final class NodeHeap {
+
+    private static final int NOT_QUEUED = -1;
+
+    private int[] heap = new int[1024];       // heap position → slot
+    private int size = 0;
+
+    private double[] keys = new double[4096];  // slot → key (valid while queued)
+    private int[] index = filled(4096);        // slot → heap position, or NOT_QUEUED
+
+    // Counters for the current search (reset by clear)
+    private int peakSize = 0;
+    private int decreaseKeys = 0;
+
+    void clear() {
+        for (int i = 0; i < size; i++) index[heap[i]] = NOT_QUEUED;
+        size = 0;
+        peakSize = 0;
+        decreaseKeys = 0;
+    }
+
+    boolean isEmpty() { return size == 0; }
+
+    int size() { return size; }
+
+    /** Largest the open set got during this search. */
+    int peakSize() { return peakSize; }
+
+    /** How many pushes lowered the key of an already-queued slot. */
+    int decreaseKeys() { return decreaseKeys; }
+
+    boolean contains(int slot) {
+        return slot < index.length && index[slot] != NOT_QUEUED;
+    }
+
+    /**
+     * Queues a slot with the given key, or lowers its key if it is already queued.
+     * A push with a key no lower than the queued one is ignored.
+     */
+    void push(int slot, double key) {
+        ensureSlot(slot);
+        int i = index[slot];
+        if (i != NOT_QUEUED) {
+            if (key >= keys[slot]) return;
+            keys[slot] = key;
+            decreaseKeys++;
+            siftUp(i);
+            return;
+        }
+
+        if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+        keys[slot] = key;
+        heap[size] = slot;
+        index[slot] = size;
+        siftUp(size++);
+        if (size > peakSize) peakSize = size;
+    }
+
+    /**
+     * Queues a slot with the given key, or moves it to that key — up or down — if it is
+     * already queued. Used by searches whose keys can also grow (IncrementalPathFinder).
+     */
+    void update(int slot, double key) {
+        ensureSlot(slot);
+        int i = index[slot];
+        if (i == NOT_QUEUED) {
+            push(slot, key);
+            return;
+        }
+        double old = keys[slot];
+        keys[slot] = key;
+        if (key < old) siftUp(i);
+        else siftDown(i);
+    }
+
+    /** Takes a slot out of the heap if it is queued. */
+    void remove(int slot) {
+        if (!contains(slot)) return;
+        int i = index[slot];
+        index[slot] = NOT_QUEUED;
+        int last = heap[--size];
+        if (i == size) return;
+        heap[i] = last;
+        index[last] = i;
+        siftUp(i);
+        siftDown(index[last]);
+    }
+
+    /** Recomputes the key of every queued slot and restores heap order (ARA* weight changes). */
+    void rekey(IntToDoubleFunction key) {
+        for (int i = 0; i < size; i++) keys[heap[i]] = key.applyAsDouble(heap[i]);
+        for (int i = (size >>> 1) - 1; i >= 0; i--) siftDown(i);
+    }
+
+    /** Key of the minimum entry. Only valid when not empty. */
+    double peekKey() { return keys[heap[0]]; }
+
+    /** Removes and returns the slot with the smallest key. Only valid when not empty. */
+    int pop() {
+        int top = heap[0];
+        index[top] = NOT_QUEUED;
+        int last = heap[--size];
+        if (size > 0) {
+            heap[0] = last;
+            index[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int i) {
+        int slot = heap[i];
+        double key = keys[slot];
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            int parentSlot = heap[p];
+            if (keys[parentSlot] <= key) break;
+            heap[i] = parentSlot;
+            index[parentSlot] = i;
+            i = p;
+        }
+        heap[i] = slot;
+        index[slot] = i;
+    }
+
+    private void siftDown(int i) {
+        int slot = heap[i];
+        double key = keys[slot];
+        int half = size >>> 1;
+        while (i < half) {
+            int c = 2 * i + 1;
+            int r = c + 1;
+            if (r < size && keys[heap[r]] < keys[heap[c]]) c = r;
+            int childSlot = heap[c];
+            if (key <= keys[childSlot]) break;
+            heap[i] = childSlot;
+            index[childSlot] = i;
+            i = c;
+        }
+        heap[i] = slot;
+        index[slot] = i;
+    }
+
+    private void ensureSlot(int slot) {
+        if (slot < index.length) return;
+        int newLen = Math.max(index.length * 2, slot + 1);
+        int oldLen = index.length;
+        index = Arrays.copyOf(index, newLen);
+        Arrays.fill(index, oldLen, newLen, NOT_QUEUED);
+        keys = Arrays.copyOf(keys, newLen);
+    }
+
+    private static int[] filled(int length) {
+        int[] a = new int[length];
+        Arrays.fill(a, NOT_QUEUED);
+        return a;
+    }
+}
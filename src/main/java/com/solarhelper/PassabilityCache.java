@@ -0,0 +1,293 @@
+package com.solarhelper;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+import net.minecraft.world.chunk.WorldChunk;
+
+/**
+ * Per-section bitset cache of block passability for PathFinder.
+ *
+ * Each 16³ chunk section gets a 4096-bit "solid" mask (one bit per block, set when
+ * TraversalTable says the block state blocks the body), built lazily the first time a
+ * query lands in it, along with the per-block move penalties if the section has any and a
+ * "no ground" mask of the solid blocks that mustn't be stood on (lava, fire, fences).
+ * All-air sections are recognised from the section palette and skip the per-block scan.
+ * A "standable" mask (feet + head free, ground below) is derived from the masks of the
+ * section and its vertical neighbours on first use.
+ *
+ * Bit layout matches the section's own index order: bit (y << 8 | z << 4 | x), so one
+ * Y layer is exactly 4 longs and layer shifts are whole-word moves.
+ *
+ * Invalidated per section on client block updates and per chunk on load/unload.
+ * Render thread only; use snapshot() to hand a region to a background search.
+ * Mask arrays are never modified once built (invalidation replaces them), so
+ * snapshots can share them.
+ */
+public final class PassabilityCache implements PassabilityView {
+
+    static final int WORDS = 64;                       // 4096 bits
+    static final int LAYER_WORDS = 4;                  // 256 bits per Y layer
+    static final long[] EMPTY_MASK = new long[WORDS];
+
+    /**
+     * Built data of one section: solid mask, the solid blocks that aren't ground (EMPTY_MASK
+     * if none), and per-block penalties (null if all zero).
+     */
+    record Masks(long[] solid, long[] noGround, byte[] penalty) {}
+    static final Masks EMPTY = new Masks(EMPTY_MASK, EMPTY_MASK, null);
+
+    private static PassabilityCache instance = null;
+
+    private final ClientWorld world;
+    private final Long2ObjectOpenHashMap<Section> sections = new Long2ObjectOpenHashMap<>();
+
+    // One-entry lookup cache — neighbour probes almost always hit the same section
+    private long lastKey = Long.MIN_VALUE;
+    private Section lastSection = null;
+
+    private static final class Section {
+        final long[] solid;
+        final long[] noGround;
+        final byte[] penalty;
+        long[] standable; // derived lazily, dropped when this or an adjacent section changes
+
+        Section(Masks masks) {
+            this.solid = masks.solid();
+            this.noGround = masks.noGround();
+            this.penalty = masks.penalty();
+        }
+    }
+
+    private PassabilityCache(ClientWorld world) {
+        this.world = world;
+    }
+
+    /** Returns the cache for this world, starting a fresh one if the world changed. */
+    public static PassabilityCache of(ClientWorld world) {
+        if (instance == null || instance.world != world) {
+            instance = new PassabilityCache(world);
+        }
+        return instance;
+    }
+
+    // ── Queries ─────────────────────────────────────────────────────────────
+
+    @Override
+    public boolean isSolid(int x, int y, int z) {
+        Section s = section(x >> 4, y >> 4, z >> 4);
+        return testBit(s.solid, x, y, z);
+    }
+
+    @Override
+    public boolean isStandable(int x, int y, int z) {
+        Section s = section(x >> 4, y >> 4, z >> 4);
+        if (s.standable == null) s.standable = deriveStandable(x >> 4, y >> 4, z >> 4, s);
+        return testBit(s.standable, x, y, z);
+    }
+
+    @Override
+    public double penalty(int x, int y, int z) {
+        return (blockPenalty(x, y, z) + blockPenalty(x, y + 1, z) + blockPenalty(x, y - 1, z)) * 0.1;
+    }
+
+    private int blockPenalty(int x, int y, int z) {
+        return penaltyAt(section(x >> 4, y >> 4, z >> 4).penalty, x, y, z);
+    }
+
+    static int penaltyAt(byte[] penalty, int x, int y, int z) {
+        return penalty == null ? 0 : penalty[(y & 15) << 8 | (z & 15) << 4 | (x & 15)] & 0xFF;
+    }
+
+    static boolean testBit(long[] mask, int x, int y, int z) {
+        int idx = (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+        return (mask[idx >>> 6] & (1L << idx)) != 0;
+    }
+
+    // ── Invalidation ────────────────────────────────────────────────────────
+
+    /** Drops the cached masks for the section containing pos (and the standable masks next to it). */
+    public void invalidate(BlockPos pos) {
+        int sx = pos.getX() >> 4, sy = pos.getY() >> 4, sz = pos.getZ() >> 4;
+        sections.remove(ChunkSectionPos.asLong(sx, sy, sz));
+        // Standable depends on the block below feet and above head, which may live in
+        // the neighbouring section
+        dropStandable(sx, sy - 1, sz);
+        dropStandable(sx, sy + 1, sz);
+        lastKey = Long.MIN_VALUE;
+        lastSection = null;
+    }
+
+    /** Drops every cached section of a chunk column (chunk load/unload). */
+    public void invalidateChunk(int cx, int cz) {
+        sections.long2ObjectEntrySet().removeIf(e ->
+            ChunkSectionPos.unpackX(e.getLongKey()) == cx && ChunkSectionPos.unpackZ(e.getLongKey()) == cz);
+        lastKey = Long.MIN_VALUE;
+        lastSection = null;
+    }
+
+    /** Routes a block change to the current world's cache, if there is one. */
+    public static void onBlockChanged(ClientWorld world, BlockPos pos) {
+        if (instance != null && instance.world == world) instance.invalidate(pos);
+    }
+
+    /** Routes a chunk load/unload to the current world's cache, if there is one. */
+    public static void onChunkChanged(ClientWorld world, int cx, int cz) {
+        if (instance != null && instance.world == world) instance.invalidateChunk(cx, cz);
+    }
+
+    private void dropStandable(int sx, int sy, int sz) {
+        Section s = sections.get(ChunkSectionPos.asLong(sx, sy, sz));
+        if (s != null) s.standable = null;
+    }
+
+    // ── Building ────────────────────────────────────────────────────────────
+
+    private Section section(int sx, int sy, int sz) {
+        long key = ChunkSectionPos.asLong(sx, sy, sz);
+        if (key == lastKey) return lastSection;
+        Section s = sections.get(key);
+        if (s == null) {
+            Masks masks = buildMasks(sx, sy, sz);
+            // Unloaded chunks read as air; don't cache them so they're built for real once loaded
+            s = new Section(masks != null ? masks : EMPTY);
+            if (masks != null) sections.put(key, s);
+        }
+        lastKey = key;
+        lastSection = s;
+        return s;
+    }
+
+    /** Returns the masks of a section, or null if its chunk isn't loaded. */
+    private Masks buildMasks(int sx, int sy, int sz) {
+        if (!world.getChunkManager().isChunkLoaded(sx, sz)) return null;
+        ChunkSection section = loadedSection(sx, sy, sz);
+        if (section == null) return EMPTY;
+        return buildMasks(section.getBlockStateContainer());
+    }
+
+    /**
+     * Returns the section at these section coords of a loaded chunk, or null if it is
+     * outside the world's height or contains nothing but air (per its palette).
+     */
+    private ChunkSection loadedSection(int sx, int sy, int sz) {
+        int index = world.sectionCoordToIndex(sy);
+        WorldChunk chunk = world.getChunk(sx, sz);
+        ChunkSection[] array = chunk.getSectionArray();
+        if (index < 0 || index >= array.length) return null; // above/below the world: void air
+
+        ChunkSection section = array[index];
+        // Palette check: an all-air section can't contain anything solid
+        if (section.isEmpty() || !section.hasAny(state -> !state.isAir())) return null;
+        return section;
+    }
+
+    /** Builds the solid and no-ground masks and penalties of one section's block states from TraversalTable. */
+    static Masks buildMasks(PalettedContainer<BlockState> states) {
+        long[] solid = new long[WORDS];
+        long[] noGround = EMPTY_MASK;
+        byte[] penalty = null;
+        // Neighbouring blocks are usually the same state; skip the id lookup for repeats
+        BlockState last = null;
+        int id = 0;
+        for (int idx = 0; idx < 4096; idx++) {
+            BlockState state = states.get(idx & 15, idx >> 8, (idx >> 4) & 15);
+            if (state.isAir()) continue;
+            if (state != last) {
+                last = state;
+                id = TraversalTable.id(state);
+            }
+            if (TraversalTable.isSolid(id)) {
+                solid[idx >>> 6] |= 1L << idx;
+                if (!TraversalTable.isGround(id)) {
+                    if (noGround == EMPTY_MASK) noGround = new long[WORDS];
+                    noGround[idx >>> 6] |= 1L << idx;
+                }
+            }
+            int p = TraversalTable.penalty(id);
+            if (p != 0) {
+                if (penalty == null) penalty = new byte[4096];
+                penalty[idx] = (byte) p;
+            }
+        }
+        return new Masks(solid, noGround, penalty);
+    }
+
+    private long[] deriveStandable(int sx, int sy, int sz, Section s) {
+        long[] above = section(sx, sy + 1, sz).solid;
+        Section under = section(sx, sy - 1, sz);
+        // section() moved the one-entry cache; point it back at this section
+        lastKey = ChunkSectionPos.asLong(sx, sy, sz);
+        lastSection = s;
+        return deriveStandable(s.solid, s.noGround, above, under.solid, under.noGround);
+    }
+
+    /**
+     * standable = !solid(y) & !solid(y + 1) & ground(y - 1), computed a Y layer (4 words) at a
+     * time, where ground is solid but not in the no-ground mask. The layer above the top and
+     * below the bottom come from the neighbouring sections.
+     */
+    static long[] deriveStandable(long[] solid, long[] noGround, long[] above, long[] below, long[] belowNoGround) {
+        long[] standable = new long[WORDS];
+        for (int w = 0; w < WORDS; w++) {
+            long up = w + LAYER_WORDS < WORDS ? solid[w + LAYER_WORDS] : above[w + LAYER_WORDS - WORDS];
+            long down = w - LAYER_WORDS >= 0
+                ? solid[w - LAYER_WORDS] & ~noGround[w - LAYER_WORDS]
+                : below[w - LAYER_WORDS + WORDS] & ~belowNoGround[w - LAYER_WORDS + WORDS];
+            standable[w] = ~solid[w] & ~up & down;
+        }
+        return standable;
+    }
+
+    // ── Snapshots ───────────────────────────────────────────────────────────
+
+    /**
+     * Captures the sections covering the given block box for a background search.
+     *
+     * Sections that are already cached contribute their (immutable) masks directly.
+     * Sections that aren't cached yet contribute a copy of their block-state container,
+     * which is cheap to take here and is turned into a mask on the searching thread.
+     */
+    public PassabilitySnapshot snapshot(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        PassabilitySnapshot snap = beginSnapshot(minX, minY, minZ, maxX, maxY, maxZ);
+        captureSome(snap, Long.MAX_VALUE);
+        return snap;
+    }
+
+    /**
+     * An empty snapshot of the sections covering the given block box, to be filled over
+     * several frames by captureSome() — large boxes take thousands of section copies.
+     */
+    public PassabilitySnapshot beginSnapshot(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        return new PassabilitySnapshot(minX >> 4, minY >> 4, minZ >> 4, maxX >> 4, maxY >> 4, maxZ >> 4);
+    }
+
+    /**
+     * Captures the next sections of snap, as snapshot() does, until all are in or budgetNs
+     * has passed. True once the snapshot is complete and can be handed off.
+     */
+    public boolean captureSome(PassabilitySnapshot snap, long budgetNs) {
+        long start = System.nanoTime();
+        while (!snap.isCaptured()) {
+            int i = snap.nextToCapture();
+            int sx = snap.sectionX(i), sy = snap.sectionY(i), sz = snap.sectionZ(i);
+            Section cached = sections.get(ChunkSectionPos.asLong(sx, sy, sz));
+            if (cached != null) {
+                snap.putMasks(sx, sy, sz, new Masks(cached.solid, cached.noGround, cached.penalty));
+            } else {
+                ChunkSection section = world.getChunkManager().isChunkLoaded(sx, sz) ? loadedSection(sx, sy, sz) : null;
+                if (section == null) {
+                    snap.putMasks(sx, sy, sz, EMPTY);
+                } else {
+                    snap.putStates(sx, sy, sz, section.getBlockStateContainer().copy());
+                }
+            }
+            if (System.nanoTime() - start >= budgetNs) break;
+        }
+        return snap.isCaptured();
+    }
+}
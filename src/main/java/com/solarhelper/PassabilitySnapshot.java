@@ -0,0 +1,167 @@
+package com.solarhelper;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.world.chunk.PalettedContainer;
+
+import java.util.Arrays;
+
+/**
+ * Immutable copy of the passability of a box of chunk sections, taken on the render thread
+ * by PassabilityCache.snapshot() (or a slice per frame with captureSome()) and searched on
+ * a background thread.
+ *
+ * Each section holds either masks shared with the live cache or a private copy of its
+ * block states; copies are turned into masks the first time the search touches them.
+ * Everything outside the box reads as solid, so a search can never wander past what was
+ * captured. Confined to one searching thread once handed off.
+ */
+public final class PassabilitySnapshot implements PassabilityView {
+
+    private static final long[] FULL_MASK = new long[PassabilityCache.WORDS];
+    static { Arrays.fill(FULL_MASK, -1L); }
+
+    private final int minSx, minSy, minSz;
+    private final int sizeX, sizeY, sizeZ;
+
+    private final long[][] solid;
+    private final long[][] noGround;
+    private final byte[][] penalty;
+    private final long[][] standable;
+    private final PalettedContainer<BlockState>[] states;
+    private int captured = 0; // sections filled in so far, in index order (render thread, before hand-off)
+
+    @SuppressWarnings("unchecked")
+    PassabilitySnapshot(int minSx, int minSy, int minSz, int maxSx, int maxSy, int maxSz) {
+        this.minSx = minSx;
+        this.minSy = minSy;
+        this.minSz = minSz;
+        this.sizeX = maxSx - minSx + 1;
+        this.sizeY = maxSy - minSy + 1;
+        this.sizeZ = maxSz - minSz + 1;
+        int count = sizeX * sizeY * sizeZ;
+        this.solid = new long[count][];
+        this.noGround = new long[count][];
+        this.penalty = new byte[count][];
+        this.standable = new long[count][];
+        this.states = new PalettedContainer[count];
+    }
+
+    void putMasks(int sx, int sy, int sz, PassabilityCache.Masks masks) {
+        int i = index(sx, sy, sz);
+        solid[i] = masks.solid();
+        noGround[i] = masks.noGround();
+        penalty[i] = masks.penalty();
+    }
+
+    void putStates(int sx, int sy, int sz, PalettedContainer<BlockState> copy) {
+        states[index(sx, sy, sz)] = copy;
+    }
+
+    // ── Capture (render thread) ─────────────────────────────────────────────
+
+    boolean isCaptured() {
+        return captured == solid.length;
+    }
+
+    /** Index of the next section to capture; the caller fills it in before asking again. */
+    int nextToCapture() {
+        return captured++;
+    }
+
+    int sectionX(int i) { return minSx + i % sizeX; }
+    int sectionY(int i) { return minSy + i / (sizeX * sizeZ); }
+    int sectionZ(int i) { return minSz + (i / sizeX) % sizeZ; }
+
+    /** True if every section within margin sections of (sx, sy, sz) was captured. */
+    public boolean covers(int sx, int sy, int sz, int margin) {
+        return sx - margin >= minSx && sx + margin < minSx + sizeX
+            && sy - margin >= minSy && sy + margin < minSy + sizeY
+            && sz - margin >= minSz && sz + margin < minSz + sizeZ;
+    }
+
+    /**
+     * Hash of one captured section's passability (solid and no-ground masks and penalties), for telling
+     * whether data built from it is still current. Only meaningful for sections in the box.
+     */
+    public long sectionHash(int sx, int sy, int sz) {
+        int i = index(sx, sy, sz);
+        if (i < 0) return 0;
+        build(i);
+        long h = 0x9E3779B97F4A7C15L;
+        for (long w : solid[i]) h = (h ^ w) * 0x100000001B3L;
+        for (long w : noGround[i]) h = (h ^ w) * 0x100000001B3L;
+        byte[] p = penalty[i];
+        if (p != null) {
+            for (byte b : p) h = (h ^ b) * 0x100000001B3L;
+        }
+        return h ^ (h >>> 29);
+    }
+
+    /** Number of sections captured. */
+    public int sectionCount() {
+        return solid.length;
+    }
+
+    @Override
+    public boolean isSolid(int x, int y, int z) {
+        return PassabilityCache.testBit(solidMask(x >> 4, y >> 4, z >> 4), x, y, z);
+    }
+
+    @Override
+    public boolean isStandable(int x, int y, int z) {
+        int sx = x >> 4, sy = y >> 4, sz = z >> 4;
+        int i = index(sx, sy, sz);
+        if (i < 0) return false;
+        long[] mask = standable[i];
+        if (mask == null) {
+            mask = PassabilityCache.deriveStandable(solidMask(sx, sy, sz), noGroundMask(sx, sy, sz),
+                solidMask(sx, sy + 1, sz), solidMask(sx, sy - 1, sz), noGroundMask(sx, sy - 1, sz));
+            standable[i] = mask;
+        }
+        return PassabilityCache.testBit(mask, x, y, z);
+    }
+
+    @Override
+    public double penalty(int x, int y, int z) {
+        return (blockPenalty(x, y, z) + blockPenalty(x, y + 1, z) + blockPenalty(x, y - 1, z)) * 0.1;
+    }
+
+    private int blockPenalty(int x, int y, int z) {
+        int i = index(x >> 4, y >> 4, z >> 4);
+        if (i < 0) return 0;
+        build(i);
+        return PassabilityCache.penaltyAt(penalty[i], x, y, z);
+    }
+
+    private long[] solidMask(int sx, int sy, int sz) {
+        int i = index(sx, sy, sz);
+        if (i < 0) return FULL_MASK;
+        build(i);
+        return solid[i];
+    }
+
+    /** No-ground mask of a section; empty outside the box, where everything reads as solid ground. */
+    private long[] noGroundMask(int sx, int sy, int sz) {
+        int i = index(sx, sy, sz);
+        if (i < 0) return PassabilityCache.EMPTY_MASK;
+        build(i);
+        return noGround[i];
+    }
+
+    /** Turns a copied section's block states into masks, if that hasn't happened yet. */
+    private void build(int i) {
+        if (solid[i] != null) return;
+        PassabilityCache.Masks masks = PassabilityCache.buildMasks(states[i]);
+        solid[i] = masks.solid();
+        noGround[i] = masks.noGround();
+        penalty[i] = masks.penalty();
+        states[i] = null;
+    }
+
+    /** Flat index of a section in the box, or -1 if it lies outside. */
+    private int index(int sx, int sy, int sz) {
+        int dx = sx - minSx, dy = sy - minSy, dz = sz - minSz;
+        if (dx < 0 || dy < 0 || dz < 0 || dx >= sizeX || dy >= sizeY || dz >= sizeZ) return -1;
+        return (dy * sizeZ + dz) * sizeX + dx;
+    }
+}
@@ -0,0 +1,29 @@
+package com.solarhelper;
+
+/**
+ * Read access to block passability, as used by PathFinder.
+ * Implemented by the live PassabilityCache (render thread) and by PassabilitySnapshot
+ * (immutable, safe to search from a background thread).
+ */
+public interface PassabilityView {
+
+    /** True if the block at (x, y, z) blocks the player's body (TraversalTable.isSolid). */
+    boolean isSolid(int x, int y, int z);
+
+    /** True if a player can stand with feet at (x, y, z): feet + head free, ground below (TraversalTable.isGround). */
+    boolean isStandable(int x, int y, int z);
+
+    /** True if the block at (x, y, z) can be walked through (not solid). */
+    default boolean isPassable(int x, int y, int z) {
+        return !isSolid(x, y, z);
+    }
+
+    /**
+     * Extra cost, in blocks, of moving into feet position (x, y, z): slow blocks the body
+     * passes through (water, cobwebs) and slow ground underfoot (soul sand, honey).
+     * See TraversalTable.
+     */
+    default double penalty(int x, int y, int z) {
+        return 0;
+    }
+}
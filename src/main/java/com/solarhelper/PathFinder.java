@@ -1,24 +1,65 @@
 package com.solarhelper;
 
-import net.minecraft.block.BlockState;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.util.math.BlockPos;
 
 import java.util.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 /**
  * Simple A* pathfinder for navigating between blocks in a Minecraft world.
- * Supports walking (step-up 1 block, drop up to 3) and flying (any air block).
+ * Supports walking in 8 directions (step-up 1 block, drop up to 3), jumping gaps of 1-3
+ * blocks along the axes (level, or onto a block one higher) and flying (any air block).
+ * The search loop itself lives in PathSearch, which can also be run a slice at a time.
  */
 public class PathFinder {
 
-    private static final int MAX_ITERATIONS = 3000;
+    static final int MAX_ITERATIONS = 3000;
     private static final int MAX_DROP = 3;
+    private static final int MAX_GAP = 3;
+    private static final double SQRT2 = Math.sqrt(2);
 
-    private record Node(BlockPos pos, Node parent, double g, double h) implements Comparable<Node> {
-        double f() { return g + h; }
-        @Override
-        public int compareTo(Node other) { return Double.compare(this.f(), other.f()); }
+    // Extra cost of a jump over a gap, on top of the distance: jumps are slower to line up and can miss
+    private static final double JUMP_COST = 2.0;
+
+    /** Furthest any walking move reads from the node it starts at, horizontally (a 3-block gap jump). */
+    static final int MOVE_REACH = MAX_GAP + 1;
+
+    // How often (in iterations) a search checks whether it has been cancelled
+    private static final int CANCEL_CHECK_INTERVAL = 128;
+
+    // Heuristic weights of the anytime search's rounds: a quick first path, then down to optimal
+    private static final double[] ANYTIME_WEIGHTS = {3.0, 2.0, 1.5, 1.2, 1.0};
+
+    // Player hitbox width, and the sample spacing for straight-line checks (must be smaller)
+    private static final double PLAYER_WIDTH = 0.6;
+    private static final double LOS_STEP = 0.2;
+
+    // Search state, reused between searches so a search allocates nothing per node.
+    // One set per thread: the render thread and the PathPlanner worker both search.
+    private record SearchState(PathNodeTable nodes, NodeHeap open) {}
+    private static final ThreadLocal<SearchState> STATE =
+        ThreadLocal.withInitial(() -> new SearchState(new PathNodeTable(), new NodeHeap()));
+
+    /**
+     * Counters from one search, for measuring the open set.
+     * reopens counts nodes expanded again after a cheaper route to them turned up —
+     * the only duplicate work left now that the open set holds each node at most once.
+     */
+    public record SearchStats(int iterations, int nodes, int peakOpenSize, int decreaseKeys, int reopens) {}
+
+    private static volatile SearchStats lastStats = new SearchStats(0, 0, 0, 0, 0);
+
+    /**
+     * Result of a best-effort search. When partial is true the search ran out of budget
+     * (or the goal is unreachable) and path leads to the expanded node closest to the goal.
+     */
+    public record PathResult(List<BlockPos> path, boolean partial) {}
+
+    /** Counters from the most recent findPath call (on any thread). */
+    public static SearchStats getLastStats() {
+        return lastStats;
     }
 
     /**
@@ -28,79 +69,167 @@ public class PathFinder {
      */
     public static List<BlockPos> findPath(ClientWorld world, BlockPos start, BlockPos goal, boolean canFly, double reachDist) {
         if (world == null) return null;
+        return findPath(PassabilityCache.of(world), start, goal, canFly, reachDist, () -> false);
+    }
 
-        // Snap start to a valid standing position
-        start = snapToGround(world, start, canFly);
-        if (start == null) return null;
-
-        PriorityQueue<Node> open = new PriorityQueue<>();
-        Map<BlockPos, Double> bestG = new HashMap<>();
-
-        double startH = heuristic(start, goal);
-        open.add(new Node(start, null, 0, startH));
-        bestG.put(start, 0.0);
-
-        int iterations = 0;
+    /**
+     * Same as findPath(ClientWorld, ...) but against any passability view — e.g. a
+     * PassabilitySnapshot on a background thread. Returns null early if cancelled
+     * reports true (checked every CANCEL_CHECK_INTERVAL iterations).
+     */
+    public static List<BlockPos> findPath(PassabilityView view, BlockPos start, BlockPos goal, boolean canFly,
+                                          double reachDist, BooleanSupplier cancelled) {
+        PathResult result = search(view, start, goal, canFly, reachDist, cancelled, false);
+        return result == null ? null : result.path();
+    }
 
-        while (!open.isEmpty() && iterations++ < MAX_ITERATIONS) {
-            Node current = open.poll();
+    /**
+     * Like findPath, but if the goal isn't reached within the budget, returns the path to
+     * the expanded node closest to the goal, flagged as partial, so the caller can walk it
+     * and plan on from its end. Returns null only if no step gets any closer, or if cancelled.
+     */
+    public static PathResult findBestEffort(PassabilityView view, BlockPos start, BlockPos goal, boolean canFly,
+                                            double reachDist, BooleanSupplier cancelled) {
+        return search(view, start, goal, canFly, reachDist, cancelled, true);
+    }
 
-            // Close enough to interact with the head
-            double distToGoal = Math.sqrt(current.pos.getSquaredDistance(goal));
-            if (distToGoal <= reachDist) {
-                return reconstructPath(current);
+    /**
+     * Anytime walking search (ARA*). The first round is weighted by ANYTIME_WEIGHTS[0], so
+     * a path — at most that many times longer than optimal — turns up after a fraction of
+     * the expansions; later rounds lower the weight down to 1, reusing all earlier work.
+     * Every new path is handed to onPath as soon as it is found, each at least as short
+     * as the one before; a round that finds the same path again reports nothing. If the
+     * first round runs out of budget, its best-effort partial path is the only one.
+     * Returns once the optimal path is found, a round runs out of budget, or cancelled
+     * reports true.
+     */
+    public static void findAnytime(PassabilityView view, BlockPos start, BlockPos goal, double reachDist,
+                                   BooleanSupplier cancelled, Consumer<PathResult> onPath) {
+        SearchState state = STATE.get();
+        PathSearch search = new PathSearch(view, start, goal, false, reachDist,
+            state.nodes(), state.open(), ANYTIME_WEIGHTS[0]);
+        List<BlockPos> last = null;
+        for (int round = 0; round < ANYTIME_WEIGHTS.length; round++) {
+            if (round > 0) search.improve(ANYTIME_WEIGHTS[round]);
+            while (search.run(CANCEL_CHECK_INTERVAL) == PathSearch.Status.RUNNING) {
+                if (cancelled.getAsBoolean()) return;
             }
-
-            // Skip if we already found a better path to this node
-            Double existingG = bestG.get(current.pos);
-            if (existingG != null && current.g > existingG) continue;
-
-            for (BlockPos neighbor : getNeighbors(world, current.pos, canFly)) {
-                double moveCost = current.pos.getSquaredDistance(neighbor) < 2.1
-                    ? 1.0   // flat or step-up
-                    : 1.414; // diagonal-ish (step-up counts a bit more)
-
-                // Penalize going up/down to prefer flat paths
-                int yDiff = Math.abs(neighbor.getY() - current.pos.getY());
-                if (yDiff > 0) moveCost += yDiff * 0.5;
-
-                double newG = current.g + moveCost;
-                Double neighborBestG = bestG.get(neighbor);
-                if (neighborBestG == null || newG < neighborBestG) {
-                    bestG.put(neighbor, newG);
-                    double h = heuristic(neighbor, goal);
-                    open.add(new Node(neighbor, current, newG, h));
-                }
+            lastStats = search.stats();
+            PathResult result = search.result(round == 0);
+            if (result != null && !result.path().equals(last)) {
+                last = result.path();
+                onPath.accept(result);
             }
+            if (search.status() != PathSearch.Status.FOUND) return;
         }
+    }
 
-        return null; // No path found
+    private static PathResult search(PassabilityView view, BlockPos start, BlockPos goal, boolean canFly,
+                                     double reachDist, BooleanSupplier cancelled, boolean bestEffort) {
+        SearchState state = STATE.get();
+        PathSearch search = new PathSearch(view, start, goal, canFly, reachDist, state.nodes(), state.open());
+        while (search.run(CANCEL_CHECK_INTERVAL) == PathSearch.Status.RUNNING) {
+            if (cancelled.getAsBoolean()) break;
+        }
+        lastStats = search.stats();
+        return search.result(bestEffort); // null if no path found (or cancelled)
     }
 
-    private static double heuristic(BlockPos a, BlockPos b) {
-        // 3D Euclidean distance
-        double dx = a.getX() - b.getX();
-        double dy = a.getY() - b.getY();
-        double dz = a.getZ() - b.getZ();
-        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    /** Cost of one move between neighbouring positions, including the target's slow-block penalty. */
+    static double moveCost(PassabilityView view, int fx, int fy, int fz, int tx, int ty, int tz) {
+        int span = Math.max(Math.abs(tx - fx), Math.abs(tz - fz));
+        double cost = span > 1
+            ? span + JUMP_COST // jump over a gap
+            : fx != tx && fz != tz
+            ? SQRT2 // diagonal
+            : 1.0;  // cardinal, or straight up/down
+
+        // Penalize going up/down to prefer flat paths
+        int yDiff = Math.abs(ty - fy);
+        if (yDiff > 0) cost += yDiff * 0.5;
+        return cost + view.penalty(tx, ty, tz);
     }
 
-    private static List<BlockPos> reconstructPath(Node node) {
+    /**
+     * Octile distance in the horizontal plane plus the vertical penalty of moveCost.
+     * Every move costs at least its own share of this, so it never overestimates.
+     */
+    static double heuristic(long pos, int gx, int gy, int gz) {
+        int dx = Math.abs(BlockPos.unpackLongX(pos) - gx);
+        int dz = Math.abs(BlockPos.unpackLongZ(pos) - gz);
+        int dy = Math.abs(BlockPos.unpackLongY(pos) - gy);
+        return Math.max(dx, dz) + (SQRT2 - 1) * Math.min(dx, dz) + dy * 0.5;
+    }
+
+    static double squaredDistance(int ax, int ay, int az, int bx, int by, int bz) {
+        double dx = ax - bx;
+        double dy = ay - by;
+        double dz = az - bz;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    static List<BlockPos> reconstructPath(PassabilityView view, PathNodeTable nodes, int slot) {
         List<BlockPos> path = new ArrayList<>();
-        while (node != null) {
-            path.add(node.pos);
-            node = node.parent;
+        while (slot != PathNodeTable.NONE) {
+            path.add(BlockPos.fromLong(nodes.pos(slot)));
+            slot = nodes.parent(slot);
         }
         Collections.reverse(path);
-        // Simplify: remove waypoints that are in a straight line
-        return simplifyPath(path);
+        return smoothPath(view, path);
+    }
+
+    /**
+     * Any-angle smoothing of a block path. From each kept waypoint it skips ahead to the
+     * furthest waypoint on the same level that the player can walk to in a straight line
+     * (hasLineOfSight), so open ground becomes one straight leg instead of a staircase of
+     * 4-connected steps. Level changes stay as waypoints. Straight runs left over (e.g.
+     * vertical flying) are merged by simplifyPath.
+     */
+    static List<BlockPos> smoothPath(PassabilityView view, List<BlockPos> path) {
+        if (path.size() <= 2) return path;
+        List<BlockPos> smoothed = new ArrayList<>();
+        smoothed.add(path.get(0));
+        int i = 0;
+        while (i < path.size() - 1) {
+            int j = i + 1;
+            while (j + 1 < path.size() && hasLineOfSight(view, path.get(i), path.get(j + 1))) j++;
+            smoothed.add(path.get(j));
+            i = j;
+        }
+        return simplifyPath(smoothed);
+    }
+
+    /**
+     * True if a player (PLAYER_WIDTH wide) can walk from the centre of a to the centre of b
+     * in a straight line on the same level: every block the box passes over along the way
+     * must be standable. Sampled every LOS_STEP blocks, which is less than the box width,
+     * so no block the box crosses is skipped.
+     */
+    static boolean hasLineOfSight(PassabilityView view, BlockPos a, BlockPos b) {
+        if (a.getY() != b.getY()) return false;
+        int y = a.getY();
+        double ax = a.getX() + 0.5, az = a.getZ() + 0.5;
+        double dx = b.getX() - a.getX(), dz = b.getZ() - a.getZ();
+        int steps = Math.max(1, (int) Math.ceil(Math.sqrt(dx * dx + dz * dz) / LOS_STEP));
+        double half = PLAYER_WIDTH / 2;
+        for (int s = 0; s <= steps; s++) {
+            double t = (double) s / steps;
+            double px = ax + dx * t, pz = az + dz * t;
+            int minX = (int) Math.floor(px - half), maxX = (int) Math.floor(px + half);
+            int minZ = (int) Math.floor(pz - half), maxZ = (int) Math.floor(pz + half);
+            if (!view.isStandable(minX, y, minZ) || !view.isStandable(maxX, y, minZ)
+                    || !view.isStandable(minX, y, maxZ) || !view.isStandable(maxX, y, maxZ)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
      * Removes intermediate waypoints that are on the same straight line,
      * keeping only the turns. This makes movement smoother.
      */
-    private static List<BlockPos> simplifyPath(List<BlockPos> path) {
+    static List<BlockPos> simplifyPath(List<BlockPos> path) {
         if (path.size() <= 2) return path;
         List<BlockPos> simplified = new ArrayList<>();
         simplified.add(path.get(0));
@@ -126,110 +255,227 @@ public class PathFinder {
         return simplified;
     }
 
-    /**
-     * Gets all valid neighboring positions a player can move to from pos.
-     */
-    private static List<BlockPos> getNeighbors(ClientWorld world, BlockPos pos, boolean canFly) {
-        List<BlockPos> neighbors = new ArrayList<>();
-
-        // 4 cardinal directions
-        int[][] dirs = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
-
+    // ── Move table ──────────────────────────────────────────────────────────
+    // One entry per move: offset and kind. Per direction (four cardinal, then four
+    // diagonal): flat, step up, then drops of 1-3. Then the gap jumps along the four
+    // axes that simulateJump shows a player can make; the two vertical flying moves come
+    // last and only apply when flying.
+
+    private static final int FLAT = 0, STEP_UP = 1, DROP = 2, JUMP = 3, FLY = 4;
+
+    private static final int[] MOVE_DX, MOVE_DY, MOVE_DZ, MOVE_KIND;
+    // Jump moves only: whether the jump needs a sprinting run-up from the block behind
+    private static final boolean[] MOVE_RUN_UP;
+    private static final int WALK_MOVES;
+
+    /** Size a neighbour buffer must have. */
+    static final int MAX_NEIGHBORS;
+
+    static {
+        int[][] dirs = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+        // Jumps as {distance, rise, run-up}: from a standstill if that lands, else from a run-up
+        List<int[]> jumps = new ArrayList<>();
+        for (int rise = 0; rise <= 1; rise++) {
+            for (int distance = 2; distance <= MAX_GAP + 1; distance++) {
+                if (simulateJump(distance, rise, false)) jumps.add(new int[] {distance, rise, 0});
+                else if (simulateJump(distance, rise, true)) jumps.add(new int[] {distance, rise, 1});
+            }
+        }
+        int perDir = 2 + MAX_DROP;
+        WALK_MOVES = dirs.length * perDir + 4 * jumps.size();
+        MAX_NEIGHBORS = WALK_MOVES + 2;
+        MOVE_DX = new int[MAX_NEIGHBORS];
+        MOVE_DY = new int[MAX_NEIGHBORS];
+        MOVE_DZ = new int[MAX_NEIGHBORS];
+        MOVE_KIND = new int[MAX_NEIGHBORS];
+        MOVE_RUN_UP = new boolean[MAX_NEIGHBORS];
+        int m = 0;
         for (int[] dir : dirs) {
-            int nx = pos.getX() + dir[0];
-            int nz = pos.getZ() + dir[1];
-
-            // Same level
-            BlockPos flat = new BlockPos(nx, pos.getY(), nz);
-            if (isStandable(world, flat) && hasHeadroom(world, pos, flat)) {
-                neighbors.add(flat);
+            m = putMove(m, dir[0], 0, dir[1], FLAT);
+            m = putMove(m, dir[0], 1, dir[1], STEP_UP);
+            for (int drop = 1; drop <= MAX_DROP; drop++) m = putMove(m, dir[0], -drop, dir[1], DROP);
+        }
+        for (int d = 0; d < 4; d++) {
+            for (int[] jump : jumps) {
+                MOVE_RUN_UP[m] = jump[2] != 0;
+                m = putMove(m, dirs[d][0] * jump[0], jump[1], dirs[d][1] * jump[0], JUMP);
             }
+        }
+        m = putMove(m, 0, 1, 0, FLY);
+        putMove(m, 0, -1, 0, FLY);
+    }
 
-            // Step up 1 block
-            BlockPos up = new BlockPos(nx, pos.getY() + 1, nz);
-            if (isStandable(world, up) && hasHeadroomForStepUp(world, pos, up)) {
-                neighbors.add(up);
-            }
+    private static int putMove(int m, int dx, int dy, int dz, int kind) {
+        MOVE_DX[m] = dx;
+        MOVE_DY[m] = dy;
+        MOVE_DZ[m] = dz;
+        MOVE_KIND[m] = kind;
+        return m + 1;
+    }
+
+    // ── Jump physics ────────────────────────────────────────────────────────
+    // Per-tick player movement as in LivingEntity.travel: input acceleration is added,
+    // the player moves, then horizontal speed decays by friction and vertical speed by
+    // gravity and drag.
+
+    private static final double JUMP_VELOCITY = 0.42;
+    private static final double GRAVITY = 0.08;
+    private static final double VERTICAL_DRAG = 0.98;
+    private static final double WALK_GROUND_ACCEL = 0.1, WALK_AIR_ACCEL = 0.02;
+    private static final double SPRINT_GROUND_ACCEL = 0.13, SPRINT_AIR_ACCEL = 0.026;
+    private static final double SPRINT_JUMP_BOOST = 0.2;
+    private static final double GROUND_FRICTION = 0.546, AIR_FRICTION = 0.91;
+    // Feet centre at take-off, from the back of the block: 0.3 short of its edge, where PathFollower jumps
+    private static final double TAKE_OFF = 0.7;
+    private static final int MAX_JUMP_TICKS = 30;
 
-            // Drop down (1-3 blocks)
-            for (int drop = 1; drop <= MAX_DROP; drop++) {
-                BlockPos down = new BlockPos(nx, pos.getY() - drop, nz);
-                if (isStandable(world, down) && hasHeadroom(world, pos, new BlockPos(nx, pos.getY(), nz))) {
-                    neighbors.add(down);
-                    break; // Only use the first valid drop level
-                }
+    /**
+     * Simulates a jump straight along an axis, holding forward, and returns whether the
+     * player's box comes down on the block distance ahead of the one it took off from,
+     * rise blocks higher, without running into that block's side first. With sprint the
+     * player arrives at full sprinting speed (after a run-up) and gets the sprint-jump
+     * boost; otherwise it jumps walking from a standstill.
+     */
+    static boolean simulateJump(int distance, int rise, boolean sprint) {
+        double half = PLAYER_WIDTH / 2;
+        double x = TAKE_OFF, y = 0;
+        double vx = sprint ? SPRINT_GROUND_ACCEL / (1 - GROUND_FRICTION) * GROUND_FRICTION : 0;
+        double vy = JUMP_VELOCITY;
+        for (int tick = 0; tick < MAX_JUMP_TICKS; tick++) {
+            boolean ground = tick == 0;
+            if (ground) vx += sprint ? SPRINT_GROUND_ACCEL + SPRINT_JUMP_BOOST : WALK_GROUND_ACCEL;
+            else vx += sprint ? SPRINT_AIR_ACCEL : WALK_AIR_ACCEL;
+            double lastX = x, lastY = y;
+            x += vx;
+            y += vy;
+            vx *= ground ? GROUND_FRICTION : AIR_FRICTION;
+            vy = (vy - GRAVITY) * VERTICAL_DRAG;
+
+            // Coming down through the landing height this tick: on the block, or into the gap
+            if (y <= rise && lastY > rise) {
+                double landX = lastX + (x - lastX) * (lastY - rise) / (lastY - y);
+                return landX + half > distance && landX - half < distance + 1;
             }
+            // Still below the landing block's top as the box reaches it: hits its side
+            if (y < rise && x + half > distance) return false;
         }
+        return false;
+    }
 
-        // Flying: also allow straight up and down
-        if (canFly) {
-            BlockPos up = pos.up();
-            if (isPassable(world, up) && isPassable(world, up.up())) {
-                neighbors.add(up);
-            }
-            BlockPos down = pos.down();
-            if (isPassable(world, down) && isPassable(world, down.up())) {
-                neighbors.add(down);
+    /**
+     * Writes every position a player can move to from (x, y, z) into out as packed
+     * BlockPos longs and returns how many there are. out must hold MAX_NEIGHBORS.
+     * All block checks are bit tests against PassabilityCache section masks (or a
+     * snapshot of them); nothing is allocated.
+     */
+    static int getNeighbors(PassabilityView view, int x, int y, int z, boolean canFly, long[] out) {
+        int count = 0;
+        int moves = canFly ? MAX_NEIGHBORS : WALK_MOVES;
+        for (int m = 0; m < moves; m++) {
+            if (canMove(view, x, y, z, m)) {
+                out[count++] = BlockPos.asLong(x + MOVE_DX[m], y + MOVE_DY[m], z + MOVE_DZ[m]);
             }
         }
-
-        return neighbors;
+        return count;
     }
 
     /**
-     * A position is standable if the block below is solid and feet+head are passable.
-     * For flying, any position with 2 air blocks is fine.
+     * Writes every position from which a single move lands on (x, y, z) into out and
+     * returns how many there are — the reverse of getNeighbors, for searches that run
+     * from the goal back toward the start. out must hold MAX_NEIGHBORS.
      */
-    private static boolean isStandable(ClientWorld world, BlockPos feetPos) {
-        // Feet and head must be passable
-        if (!isPassable(world, feetPos)) return false;
-        if (!isPassable(world, feetPos.up())) return false;
-        // Block below must be solid (something to stand on)
-        BlockState below = world.getBlockState(feetPos.down());
-        return below.isSolidBlock(world, feetPos.down());
+    static int getPredecessors(PassabilityView view, int x, int y, int z, boolean canFly, long[] out) {
+        int count = 0;
+        int moves = canFly ? MAX_NEIGHBORS : WALK_MOVES;
+        for (int m = 0; m < moves; m++) {
+            int fx = x - MOVE_DX[m], fy = y - MOVE_DY[m], fz = z - MOVE_DZ[m];
+            if (canMove(view, fx, fy, fz, m)) out[count++] = BlockPos.asLong(fx, fy, fz);
+        }
+        return count;
+    }
+
+    /** Whether move m of the table can be made from (x, y, z). */
+    private static boolean canMove(PassabilityView view, int x, int y, int z, int m) {
+        int nx = x + MOVE_DX[m], nz = z + MOVE_DZ[m];
+        // A diagonal move sweeps the player across both cells beside it, so neither corner
+        // may be blocked where the player's body passes
+        if (nx != x && nz != z && !(clearCorner(view, nx, y, z, m) && clearCorner(view, x, y, nz, m))) {
+            return false;
+        }
+        return switch (MOVE_KIND[m]) {
+            // Same level (standable already implies 2 blocks of headroom)
+            case FLAT -> view.isStandable(nx, y, nz);
+            // Step up 1 block — also need clearance above current head to "jump" up
+            case STEP_UP -> view.isStandable(nx, y + 1, nz) && view.isPassable(x, y + 2, z);
+            // Drop down — need headroom to walk off the edge at the current level,
+            // and only the first valid drop level counts
+            case DROP -> {
+                int drop = -MOVE_DY[m];
+                if (!hasHeadroom(view, nx, y, nz) || !view.isStandable(nx, y - drop, nz)) yield false;
+                boolean shallower = false;
+                for (int d = 1; d < drop && !shallower; d++) shallower = view.isStandable(nx, y - d, nz);
+                yield !shallower;
+            }
+            case JUMP -> canJump(view, x, y, z, m);
+            // Flying straight up or down
+            default -> MOVE_DY[m] > 0
+                ? view.isPassable(x, y + 1, z) && view.isPassable(x, y + 2, z)
+                : view.isPassable(x, y - 1, z) && view.isPassable(x, y, z);
+        };
     }
 
     /**
-     * Check that the player has 2 blocks of headroom when moving from src to dst at the same level.
+     * Whether jump move m can be made from (x, y, z): a gap of unstandable cells with a
+     * clear arc above (feet to jump height) between here and a standable landing, and the
+     * block behind to run up from if the jump needs sprinting speed.
      */
-    private static boolean hasHeadroom(ClientWorld world, BlockPos src, BlockPos dst) {
-        return isPassable(world, dst) && isPassable(world, dst.up());
+    private static boolean canJump(PassabilityView view, int x, int y, int z, int m) {
+        int dx = MOVE_DX[m], dz = MOVE_DZ[m];
+        int distance = Math.max(Math.abs(dx), Math.abs(dz));
+        int ux = Integer.signum(dx), uz = Integer.signum(dz);
+        if (!view.isStandable(x + dx, y + MOVE_DY[m], z + dz) || !view.isPassable(x, y + 2, z)) return false;
+        for (int i = 1; i < distance; i++) {
+            int cx = x + ux * i, cz = z + uz * i;
+            // Somewhere to stand on the way means walking (or a shorter jump) does it
+            if (view.isStandable(cx, y, cz) || !hasHeadroom(view, cx, y, cz) || !view.isPassable(cx, y + 2, cz)) {
+                return false;
+            }
+        }
+        return !MOVE_RUN_UP[m] || view.isStandable(x - ux, y, z - uz);
     }
 
     /**
-     * For stepping up, need headroom at the higher level AND the block above current head.
+     * Whether a corner cell beside diagonal move m leaves room for the player: feet and
+     * head free at the current level, plus the block above for a jump up.
      */
-    private static boolean hasHeadroomForStepUp(ClientWorld world, BlockPos src, BlockPos dst) {
-        // Need 2 blocks clear at destination
-        if (!isPassable(world, dst) || !isPassable(world, dst.up())) return false;
-        // Also need clearance above current head to "jump" up
-        return isPassable(world, src.up().up());
+    private static boolean clearCorner(PassabilityView view, int x, int y, int z, int m) {
+        return hasHeadroom(view, x, y, z) && (MOVE_KIND[m] != STEP_UP || view.isPassable(x, y + 2, z));
     }
 
-    private static boolean isPassable(ClientWorld world, BlockPos pos) {
-        BlockState state = world.getBlockState(pos);
-        // Not a full solid block = passable (air, flowers, slabs in some cases, etc.)
-        return !state.isSolidBlock(world, pos);
+    /**
+     * Check that the player has 2 blocks of headroom (feet + head passable) at a position.
+     */
+    private static boolean hasHeadroom(PassabilityView view, int x, int y, int z) {
+        return view.isPassable(x, y, z) && view.isPassable(x, y + 1, z);
     }
 
     /**
      * Snaps a position to the nearest valid standing block below it.
      * Used to find a valid start position.
      */
-    private static BlockPos snapToGround(ClientWorld world, BlockPos pos, boolean canFly) {
+    static BlockPos snapToGround(PassabilityView view, BlockPos pos, boolean canFly) {
+        int x = pos.getX(), y = pos.getY(), z = pos.getZ();
         // Try current position first
-        if (isStandable(world, pos)) return pos;
+        if (view.isStandable(x, y, z)) return pos;
         // If flying, just need passable space
-        if (canFly && isPassable(world, pos) && isPassable(world, pos.up())) return pos;
+        if (canFly && hasHeadroom(view, x, y, z)) return pos;
         // Search down
         for (int dy = 0; dy <= 5; dy++) {
-            BlockPos check = pos.down(dy);
-            if (isStandable(world, check)) return check;
+            if (view.isStandable(x, y - dy, z)) return pos.down(dy);
         }
         // Search up
         for (int dy = 1; dy <= 3; dy++) {
-            BlockPos check = pos.up(dy);
-            if (isStandable(world, check)) return check;
+            if (view.isStandable(x, y + dy, z)) return pos.up(dy);
         }
         return pos; // fallback to original
     }
@@ -0,0 +1,268 @@
+package com.solarhelper;
+
+import net.minecraft.client.network.ClientPlayerEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.List;
+
+/**
+ * Pure-pursuit controller that walks the head seeker along its path.
+ *
+ * Each frame the player is projected onto the path polyline (waypoint centres at feet
+ * height), giving the progress along it, and the steering target is the point a
+ * lookahead distance further on; the lookahead grows with speed, so fast stretches are
+ * cut smoothly instead of being followed waypoint by waypoint. The desired velocity
+ * toward that point is compared with the player's actual velocity, and the movement keys
+ * — forward/back and strafe, relative to whatever way the camera faces — are the
+ * combination whose push best closes the gap, so drift and momentum are corrected
+ * whatever the view is doing.
+ *
+ * Ground friction is modelled to brake early enough to take sharp corners at a slow
+ * speed rather than overshooting them; sprint is held otherwise. Jumps are timed to the
+ * next step up, and to the edge of a gap the planner chose to jump (PathFinder's jump
+ * moves assume take-off 0.3 short of the edge, which is where the player's box starts
+ * to overhang it).
+ *
+ * Walking only (flight keeps the plain look-and-fly control). Render thread; the key
+ * state is read by KeyboardInputMixin through SolarHelperClient.
+ */
+final class PathFollower {
+
+    // Ground movement, in blocks per tick
+    private static final double SPRINT_SPEED = 0.28;
+    private static final double CORNER_SPEED = 0.13;
+    // Horizontal velocity kept per tick on the ground with no input (slipperiness 0.6 × drag 0.91)
+    private static final double GROUND_FRICTION = 0.546;
+
+    // Lookahead = LOOKAHEAD_MIN + LOOKAHEAD_TICKS × speed
+    private static final double LOOKAHEAD_MIN = 1.0;
+    private static final double LOOKAHEAD_TICKS = 6.0;
+    // The path turns by more than this at a corner worth braking for
+    private static final double CORNER_COS = Math.cos(Math.toRadians(50));
+    // Jump when a step up is this close horizontally
+    private static final double JUMP_DISTANCE = 1.3;
+    // Jump a gap once the feet are this close to its edge (half the player's width)
+    private static final double GAP_LEAD = 0.3;
+    // Projection looks this many segments ahead of the current waypoint
+    private static final int PROJECT_AHEAD = 3;
+
+    private static List<BlockPos> path = null;
+    private static double[] cumulative = new double[0]; // path length up to each waypoint
+    private static boolean active = false;
+
+    // Results of the last update
+    private static int segment = 0;
+    private static double progress = 0;
+    private static double lastProgress = 0;
+    private static double lookX, lookY, lookZ;
+    private static int forward = 0, sideways = 0;
+    private static boolean sprint = false, jump = false;
+
+    private PathFollower() {}
+
+    /**
+     * Steers along path, whose waypoint index is the one being walked toward. Sets the
+     * key state, the lookahead point and the progress for this frame.
+     */
+    static void update(PassabilityView view, ClientPlayerEntity player, List<BlockPos> newPath, int index) {
+        if (newPath != path) setPath(newPath);
+        active = true;
+        double px = player.getX(), py = player.getY(), pz = player.getZ();
+        Vec3d vel = player.getVelocity();
+        double speed = Math.sqrt(vel.x * vel.x + vel.z * vel.z);
+
+        project(px, py, pz, index);
+        double ahead = LOOKAHEAD_MIN + LOOKAHEAD_TICKS * speed;
+        double[] look = pointAt(progress + ahead);
+        lookX = look[0];
+        lookY = look[1];
+        lookZ = look[2];
+
+        // Brake for a sharp corner once it's within stopping distance
+        double target = SPRINT_SPEED;
+        double corner = distanceToCorner();
+        if (corner < stoppingDistance(speed, CORNER_SPEED)) target = CORNER_SPEED;
+
+        // Desired push: toward the lookahead point at twice the target speed, minus the
+        // current velocity — at speed on course that is still straight ahead, while
+        // sideways drift and overspeed show up as a correction
+        double dx = lookX - px, dz = lookZ - pz;
+        double dist = Math.sqrt(dx * dx + dz * dz);
+        if (dist < 1e-6) {
+            forward = 0;
+            sideways = 0;
+        } else {
+            double ex = dx / dist * 2 * target - vel.x;
+            double ez = dz / dist * 2 * target - vel.z;
+            chooseKeys(player.getYaw(), ex, ez);
+        }
+        sprint = forward > 0 && target >= SPRINT_SPEED;
+        jump = player.isOnGround() && (stepAhead(px, py, pz) || gapAhead(view, px, pz));
+    }
+
+    /** Stops steering; the seeker falls back to its plain controls. */
+    static void stop() {
+        active = false;
+        path = null;
+        forward = 0;
+        sideways = 0;
+        sprint = false;
+        jump = false;
+    }
+
+    static boolean isActive() { return active; }
+    static int forward() { return forward; }
+    static int sideways() { return sideways; }
+    static boolean sprint() { return sprint; }
+    static boolean jump() { return jump; }
+
+    /** Index of the waypoint the player has most recently passed (start of its segment). */
+    static int segment() { return segment; }
+
+    /** Progress made since the previous call (per frame), for stuck detection. */
+    static double progressDelta() {
+        double d = progress - lastProgress;
+        lastProgress = progress;
+        return d;
+    }
+
+    static double lookX() { return lookX; }
+    static double lookY() { return lookY; }
+    static double lookZ() { return lookZ; }
+
+    // ── Geometry ────────────────────────────────────────────────────────────
+
+    private static void setPath(List<BlockPos> newPath) {
+        path = newPath;
+        cumulative = new double[newPath.size()];
+        for (int i = 1; i < newPath.size(); i++) {
+            cumulative[i] = cumulative[i - 1] + length(newPath.get(i - 1), newPath.get(i));
+        }
+        segment = 0;
+        progress = 0;
+        lastProgress = 0;
+    }
+
+    /** Finds the closest point on the segments around index; sets segment and progress. */
+    private static void project(double px, double py, double pz, int index) {
+        if (path.size() < 2) {
+            segment = 0;
+            progress = 0;
+            return;
+        }
+        int from = Math.max(0, Math.min(index - 1, path.size() - 2));
+        int to = Math.min(path.size() - 2, index + PROJECT_AHEAD);
+        double best = Double.MAX_VALUE;
+        for (int s = from; s <= to; s++) {
+            BlockPos a = path.get(s), b = path.get(s + 1);
+            double ax = a.getX() + 0.5, ay = a.getY(), az = a.getZ() + 0.5;
+            double bx = b.getX() + 0.5 - ax, by = b.getY() - ay, bz = b.getZ() + 0.5 - az;
+            double lenSq = bx * bx + by * by + bz * bz;
+            double t = lenSq == 0 ? 0 : ((px - ax) * bx + (py - ay) * by + (pz - az) * bz) / lenSq;
+            t = Math.max(0, Math.min(1, t));
+            double cx = ax + bx * t - px, cy = ay + by * t - py, cz = az + bz * t - pz;
+            double d = cx * cx + cy * cy + cz * cz;
+            if (d < best) {
+                best = d;
+                segment = s;
+                progress = cumulative[s] + t * (cumulative[s + 1] - cumulative[s]);
+            }
+        }
+    }
+
+    /** The point at distance s along the path (clamped to its ends). */
+    private static double[] pointAt(double s) {
+        int last = path.size() - 1;
+        if (s >= cumulative[last] || last == 0) {
+            BlockPos end = path.get(last);
+            return new double[] {end.getX() + 0.5, end.getY(), end.getZ() + 0.5};
+        }
+        int i = Math.max(segment, 0);
+        while (i < last - 1 && cumulative[i + 1] < s) i++;
+        BlockPos a = path.get(i), b = path.get(i + 1);
+        double len = cumulative[i + 1] - cumulative[i];
+        double t = len == 0 ? 0 : (s - cumulative[i]) / len;
+        return new double[] {
+            a.getX() + 0.5 + (b.getX() - a.getX()) * t,
+            a.getY() + (b.getY() - a.getY()) * t,
+            a.getZ() + 0.5 + (b.getZ() - a.getZ()) * t
+        };
+    }
+
+    /** Distance along the path to the next waypoint where it turns sharply, or +∞. */
+    private static double distanceToCorner() {
+        for (int k = segment + 1; k < path.size() - 1; k++) {
+            BlockPos a = path.get(k - 1), b = path.get(k), c = path.get(k + 1);
+            double ix = b.getX() - a.getX(), iz = b.getZ() - a.getZ();
+            double ox = c.getX() - b.getX(), oz = c.getZ() - b.getZ();
+            double norm = Math.sqrt((ix * ix + iz * iz) * (ox * ox + oz * oz));
+            if (norm > 0 && (ix * ox + iz * oz) / norm < CORNER_COS) return cumulative[k] - progress;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /** Distance coasting from speed down to target takes on the ground, plus half a block of margin. */
+    private static double stoppingDistance(double speed, double target) {
+        if (speed <= target) return 0;
+        return (speed - target) * GROUND_FRICTION / (1 - GROUND_FRICTION) + 0.5;
+    }
+
+    /** Whether a waypoint just ahead is a step up from the player's height. */
+    private static boolean stepAhead(double px, double py, double pz) {
+        for (int k = segment + 1; k < path.size() && cumulative[k] - progress <= JUMP_DISTANCE + 1; k++) {
+            BlockPos w = path.get(k);
+            double dx = w.getX() + 0.5 - px, dz = w.getZ() + 0.5 - pz;
+            if (w.getY() >= py + 0.5 && dx * dx + dz * dz <= JUMP_DISTANCE * JUMP_DISTANCE) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether the segment being walked is a jump over a gap (two or more blocks long, not
+     * a drop, with no floor just past the player's box) and the feet have reached the
+     * take-off point.
+     */
+    private static boolean gapAhead(PassabilityView view, double px, double pz) {
+        if (segment + 1 >= path.size()) return false;
+        BlockPos a = path.get(segment), b = path.get(segment + 1);
+        int dx = b.getX() - a.getX(), dz = b.getZ() - a.getZ();
+        if (Math.max(Math.abs(dx), Math.abs(dz)) < 2 || b.getY() < a.getY()) return false;
+        double len = Math.sqrt(dx * dx + dz * dz);
+        int x = (int) Math.floor(px + dx / len * GAP_LEAD);
+        int z = (int) Math.floor(pz + dz / len * GAP_LEAD);
+        return !view.isStandable(x, a.getY(), z);
+    }
+
+    /**
+     * Picks the forward/strafe keys whose movement direction at this yaw lines up best
+     * with the wanted push (ex, ez). Minecraft turns input into motion as
+     * x = strafe·cos(yaw) − forward·sin(yaw), z = forward·cos(yaw) + strafe·sin(yaw).
+     */
+    private static void chooseKeys(float yawDegrees, double ex, double ez) {
+        double yaw = Math.toRadians(yawDegrees);
+        double sin = Math.sin(yaw), cos = Math.cos(yaw);
+        double bestDot = 0;
+        forward = 0;
+        sideways = 0;
+        for (int f = -1; f <= 1; f++) {
+            for (int s = -1; s <= 1; s++) {
+                if (f == 0 && s == 0) continue;
+                double norm = (f != 0 && s != 0) ? Math.sqrt(2) : 1;
+                double mx = (s * cos - f * sin) / norm;
+                double mz = (f * cos + s * sin) / norm;
+                double dot = mx * ex + mz * ez;
+                if (dot > bestDot) {
+                    bestDot = dot;
+                    forward = f;
+                    sideways = s;
+                }
+            }
+        }
+    }
+
+    private static double length(BlockPos a, BlockPos b) {
+        double dx = b.getX() - a.getX(), dy = b.getY() - a.getY(), dz = b.getZ() - a.getZ();
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+}
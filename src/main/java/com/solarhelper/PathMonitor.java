@@ -0,0 +1,127 @@
+package com.solarhelper;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.List;
+
+/**
+ * Watches the path the head seeker is following for block changes that break it.
+ *
+ * watch() rasterises every segment (waypoint i → i + 1) into the feet cells the player's
+ * box passes over and keeps them in a cell → segment map. A block change looks up the
+ * feet cells whose floor, body or jump clearance that block is, and notes the segments
+ * they belong to. poll() then re-checks just those segments against the (by then
+ * invalidated) passability cache and reports the first one still ahead that no longer
+ * holds, so the seeker can repair the route before walking into the break rather than
+ * after getting stuck on it.
+ *
+ * Render thread only.
+ */
+final class PathMonitor {
+
+    // Sample spacing along a segment; less than the player's width, so no cell is skipped
+    private static final double STEP = 0.25;
+    private static final double HALF_WIDTH = 0.3;
+
+    private static List<BlockPos> path = null;
+    private static boolean flying = false;
+    // Packed feet cell → lowest segment index passing over it
+    private static final Long2IntOpenHashMap CELLS = new Long2IntOpenHashMap();
+    static { CELLS.defaultReturnValue(-1); }
+    // Segments touched by block changes since the last poll
+    private static final IntArrayList HITS = new IntArrayList();
+    private static final long[] NEIGHBORS = new long[PathFinder.MAX_NEIGHBORS];
+
+    private PathMonitor() {}
+
+    /** Starts watching a new path (flying: planned by FlightPlanner). */
+    static void watch(List<BlockPos> newPath, boolean canFly) {
+        path = newPath;
+        flying = canFly;
+        CELLS.clear();
+        HITS.clear();
+        if (newPath == null) return;
+        for (int s = 0; s + 1 < newPath.size(); s++) rasterise(s, newPath.get(s), newPath.get(s + 1));
+    }
+
+    private static void rasterise(int segment, BlockPos a, BlockPos b) {
+        double ax = a.getX() + 0.5, ay = a.getY(), az = a.getZ() + 0.5;
+        double dx = b.getX() - a.getX(), dy = b.getY() - a.getY(), dz = b.getZ() - a.getZ();
+        int steps = Math.max(1, (int) Math.ceil(Math.sqrt(dx * dx + dy * dy + dz * dz) / STEP));
+        for (int i = 0; i <= steps; i++) {
+            double t = (double) i / steps;
+            double px = ax + dx * t, pz = az + dz * t;
+            int y = (int) Math.floor(ay + dy * t);
+            int minX = (int) Math.floor(px - HALF_WIDTH), maxX = (int) Math.floor(px + HALF_WIDTH);
+            int minZ = (int) Math.floor(pz - HALF_WIDTH), maxZ = (int) Math.floor(pz + HALF_WIDTH);
+            for (int x = minX; x <= maxX; x++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    // Segments are added in order, so the first one to claim a cell is the lowest
+                    CELLS.putIfAbsent(BlockPos.asLong(x, y, z), segment);
+                }
+            }
+        }
+    }
+
+    /** Notes the watched segments a changed block could affect. */
+    static void onBlockChanged(BlockPos pos) {
+        if (path == null) return;
+        // The block is the floor (dy = 1), the feet (0), the head (-1) or the jump clearance (-2) of a feet cell
+        for (int dy = -2; dy <= 1; dy++) {
+            int segment = CELLS.get(BlockPos.asLong(pos.getX(), pos.getY() + dy, pos.getZ()));
+            if (segment >= 0) HITS.add(segment);
+        }
+    }
+
+    /**
+     * Re-checks the segments hit since the last call and returns the first one that starts
+     * at or after waypoint index - 1 (the one being walked) and no longer holds, or -1 if
+     * none do. Only answers for the path last passed to watch(); anything else returns -1.
+     */
+    static int poll(PassabilityView view, List<BlockPos> current, int index) {
+        if (HITS.isEmpty()) return -1;
+        if (current != path) {
+            HITS.clear();
+            return -1;
+        }
+        int broken = -1;
+        for (int i = 0; i < HITS.size(); i++) {
+            int s = HITS.getInt(i);
+            if (s < index - 1 || (broken >= 0 && s >= broken)) continue;
+            if (!holds(view, path.get(s), path.get(s + 1))) broken = s;
+        }
+        HITS.clear();
+        return broken;
+    }
+
+    /** Whether the player can still get from a to b the way the planner meant. */
+    private static boolean holds(PassabilityView view, BlockPos a, BlockPos b) {
+        if (flying) return FlightPlanner.hasLineOfSight(view, a, b);
+        int dx = b.getX() - a.getX(), dy = b.getY() - a.getY(), dz = b.getZ() - a.getZ();
+        int n = Math.max(Math.abs(dx), Math.max(Math.abs(dy), Math.abs(dz)));
+        // A single move, e.g. a jump over a gap
+        if (isMove(view, a.getX(), a.getY(), a.getZ(), dx, dy, dz)) return true;
+        // A straight run of one repeated move (merged by simplifyPath): check every step of it
+        if (n > 0 && dx % n == 0 && dy % n == 0 && dz % n == 0) {
+            int sx = dx / n, sy = dy / n, sz = dz / n;
+            for (int i = 0; i < n; i++) {
+                if (!isMove(view, a.getX() + sx * i, a.getY() + sy * i, a.getZ() + sz * i, sx, sy, sz)) return false;
+            }
+            return true;
+        }
+        // Any-angle leg on one level
+        if (dy == 0) return PathFinder.hasLineOfSight(view, a, b);
+        // A drop of several blocks next to the start
+        if (Math.abs(dx) <= 1 && Math.abs(dz) <= 1) return isMove(view, a.getX(), a.getY(), a.getZ(), dx, dy, dz);
+        return true;
+    }
+
+    private static boolean isMove(PassabilityView view, int x, int y, int z, int dx, int dy, int dz) {
+        long target = BlockPos.asLong(x + dx, y + dy, z + dz);
+        int count = PathFinder.getNeighbors(view, x, y, z, false, NEIGHBORS);
+        for (int i = 0; i < count; i++) if (NEIGHBORS[i] == target) return true;
+        return false;
+    }
+}
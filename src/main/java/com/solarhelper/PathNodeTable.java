@@ -0,0 +1,138 @@
+package com.solarhelper;
+
+import java.util.Arrays;
+
+/**
+ * Node storage for the A* search, keyed by packed BlockPos longs (BlockPos.asLong).
+ *
+ * Every position the search touches gets a slot; the per-slot data (position, g score,
+ * parent slot, closed flag) lives in parallel primitive arrays, and an open-addressing
+ * hash table maps packed position → slot. Nothing is allocated per node, and the arrays
+ * are kept between searches — clear() just resets the counters and the bucket table.
+ */
+final class PathNodeTable {
+
+    static final int NONE = -1;
+
+    private static final int INITIAL_SLOTS = 4096;
+
+    // Slot data (parallel arrays, indexed by slot)
+    private long[] pos;
+    private double[] g;
+    private int[] parent;
+    private boolean[] closed;
+    private int size = 0;
+
+    // Hash buckets: slot index or NONE. Capacity is always a power of two ≥ 2 × slots.
+    private int[] buckets;
+    private int mask;
+
+    PathNodeTable() {
+        pos = new long[INITIAL_SLOTS];
+        g = new double[INITIAL_SLOTS];
+        parent = new int[INITIAL_SLOTS];
+        closed = new boolean[INITIAL_SLOTS];
+        buckets = new int[INITIAL_SLOTS * 2];
+        mask = buckets.length - 1;
+        Arrays.fill(buckets, NONE);
+    }
+
+    /** Forgets all nodes. Arrays are kept so the next search reuses them. */
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(buckets, NONE);
+            size = 0;
+        }
+    }
+
+    int size() { return size; }
+
+    /** Returns the slot for a packed position, or NONE if it hasn't been seen this search. */
+    int find(long key) {
+        int i = hash(key) & mask;
+        while (true) {
+            int slot = buckets[i];
+            if (slot == NONE) return NONE;
+            if (pos[slot] == key) return slot;
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns the slot for a packed position, creating it (g = +∞, no parent, not closed)
+     * if it hasn't been seen this search.
+     */
+    int findOrAdd(long key) {
+        int i = hash(key) & mask;
+        while (true) {
+            int slot = buckets[i];
+            if (slot == NONE) break;
+            if (pos[slot] == key) return slot;
+            i = (i + 1) & mask;
+        }
+
+        if (size == pos.length) {
+            grow();
+            // Bucket layout changed — find the free bucket again
+            i = hash(key) & mask;
+            while (buckets[i] != NONE) i = (i + 1) & mask;
+        }
+
+        int slot = size++;
+        pos[slot] = key;
+        g[slot] = Double.POSITIVE_INFINITY;
+        parent[slot] = NONE;
+        closed[slot] = false;
+        buckets[i] = slot;
+        return slot;
+    }
+
+    long pos(int slot)   { return pos[slot]; }
+    double g(int slot)   { return g[slot]; }
+    int parent(int slot) { return parent[slot]; }
+    boolean isClosed(int slot) { return closed[slot]; }
+
+    /** Clears every closed flag, for a search that runs again over the same nodes (ARA*). */
+    void reopenAll() {
+        Arrays.fill(closed, 0, size, false);
+    }
+
+    /** Marks a slot as expanded; returns true if it had already been expanded before. */
+    boolean close(int slot) {
+        boolean was = closed[slot];
+        closed[slot] = true;
+        return was;
+    }
+
+    void set(int slot, double newG, int newParent) {
+        g[slot] = newG;
+        parent[slot] = newParent;
+    }
+
+    private void grow() {
+        int newSlots = pos.length * 2;
+        pos = Arrays.copyOf(pos, newSlots);
+        g = Arrays.copyOf(g, newSlots);
+        parent = Arrays.copyOf(parent, newSlots);
+        closed = Arrays.copyOf(closed, newSlots);
+
+        buckets = new int[newSlots * 2];
+        mask = buckets.length - 1;
+        Arrays.fill(buckets, NONE);
+        for (int slot = 0; slot < size; slot++) {
+            int i = hash(pos[slot]) & mask;
+            while (buckets[i] != NONE) i = (i + 1) & mask;
+            buckets[i] = slot;
+        }
+    }
+
+    // Murmur3 finalizer — packed BlockPos longs have lots of structure in the low bits
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,284 @@
+package com.solarhelper;
+
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs PathFinder searches on a background thread so a long (or failing) search never
+ * stalls a frame.
+ *
+ * The render thread captures a PassabilitySnapshot of the area around start and goal,
+ * and the worker searches that snapshot — it never touches the live world. Boxes run to
+ * thousands of sections, so the capture is spread over frames by tickFrame(), a
+ * FRAME_BUDGET_NS slice at a time, and the search is posted once it is complete. Only one
+ * request is live at a time: starting a new one or calling cancel() cancels the
+ * previous request's future and stops its search at the next cancellation check.
+ *
+ * Short hops are the exception: they are searched on the render thread against the live
+ * PassabilityCache, stepped a FRAME_BUDGET_NS slice per frame by tickFrame(), which
+ * skips the snapshot copy and the thread hop without ever costing a frame more than that.
+ *
+ * Other short routes get an anytime search (PathFinder.findAnytime): the future completes
+ * with its quick first path, and each better path after that is left for pollRefined().
+ * Repairs and stuck replans go through IncrementalPathFinder instead, which keeps its
+ * search tree per target. Both keep the snapshot box while the player stays well inside it.
+ * A player who can fly is routed by FlightPlanner instead, through free space.
+ */
+public final class PathPlanner {
+
+    // Margin captured around the start→goal box. The search can't leave the snapshot,
+    // and a 3000-iteration search rarely strays further than this from the straight line.
+    private static final int SNAPSHOT_MARGIN_XZ = 32;
+    private static final int SNAPSHOT_MARGIN_Y  = 16;
+    // Cap on how far from the start the snapshot reaches; anything further can't be
+    // reached inside one search budget anyway
+    private static final int SNAPSHOT_MAX_REACH_XZ = 96;
+    private static final int SNAPSHOT_MAX_REACH_Y  = 64;
+
+    // Walking routes longer than this (horizontally) go through the cluster graph
+    // (HierarchicalPathFinder), which can capture a much larger area
+    private static final int HIERARCHICAL_MIN_DIST = 48;
+    private static final int HIERARCHICAL_MAX_REACH_XZ = 320;
+
+    // Flights are cheap to plan across open air, so they get a wider snapshot than walks
+    private static final int FLIGHT_MAX_REACH_XZ = 160;
+
+    // Routes this short (new requests only, not repairs) are time-sliced on the render thread
+    private static final int SLICED_MAX_DIST = 16;
+    private static final int SLICED_MAX_DY = 8;
+    // Search time allowed per frame for a time-sliced search
+    public static final long FRAME_BUDGET_NS = 500_000L;
+
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "solarhelper-pathfinder");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final class Request {
+        final CompletableFuture<PathFinder.PathResult> future = new CompletableFuture<>();
+        volatile boolean cancelled = false;
+        PathSearch sliced = null; // set for searches stepped by tickFrame()
+        // Set while tickFrame() is still capturing the snapshot; search is posted after
+        PassabilityCache cache = null;
+        PassabilitySnapshot capturing = null;
+        Runnable search = null;
+        // Latest improvement on the path the future completed with (anytime searches)
+        final AtomicReference<PathFinder.PathResult> refined = new AtomicReference<>();
+    }
+
+    // Node storage for the time-sliced search; only the current request ever uses it
+    private static final PathNodeTable SLICED_NODES = new PathNodeTable();
+    private static final NodeHeap SLICED_OPEN = new NodeHeap();
+
+    // A new box is taken once the player gets this close to the edge of the kept one
+    private static final int INCREMENTAL_BOX_INSET = 12;
+
+    // What a submitted request is for; decides how it is planned
+    private enum Kind { NEW, REPAIR, STUCK }
+
+    private static Request current = null; // render thread only
+    private static ClientWorld lastWorld = null;
+
+    // Snapshot box of the incremental planner's current target (render thread only)
+    private static BlockPos boxGoal = null;
+    private static boolean boxCanFly = false;
+    private static int[] box = null; // minX, minY, minZ, maxX, maxY, maxZ
+
+    private PathPlanner() {}
+
+    /**
+     * Starts a background search from start to within reachDist of goal, cancelling any
+     * search still in flight. The future completes with the path — partial if the goal
+     * couldn't be reached within the search budget — or null if no step gets closer;
+     * it is cancelled if another request or cancel() supersedes it.
+     * Must be called on the render thread.
+     */
+    public static CompletableFuture<PathFinder.PathResult> request(ClientWorld world, BlockPos start, BlockPos goal,
+                                                            boolean canFly, double reachDist) {
+        return submit(world, start, goal, canFly, reachDist, Kind.NEW);
+    }
+
+    /**
+     * Like request(), for when the seeker got stuck at start following the previous path.
+     * Short routes repair the kept search tree around the step that failed instead of
+     * searching from scratch.
+     */
+    public static CompletableFuture<PathFinder.PathResult> replan(ClientWorld world, BlockPos start, BlockPos goal,
+                                                           boolean canFly, double reachDist) {
+        return submit(world, start, goal, canFly, reachDist, Kind.STUCK);
+    }
+
+    /**
+     * Like request(), for when a block change broke the path ahead (PathMonitor). Short
+     * routes update the kept search tree for the changed blocks instead of searching anew.
+     */
+    public static CompletableFuture<PathFinder.PathResult> repair(ClientWorld world, BlockPos start, BlockPos goal,
+                                                           boolean canFly, double reachDist) {
+        return submit(world, start, goal, canFly, reachDist, Kind.REPAIR);
+    }
+
+    private static CompletableFuture<PathFinder.PathResult> submit(ClientWorld world, BlockPos start, BlockPos goal,
+                                                            boolean canFly, double reachDist, Kind kind) {
+        cancel();
+        if (world != lastWorld) {
+            // Cluster graph and search tree belong to the old world
+            HierarchicalPathFinder.CHANGES.postAll();
+            box = null;
+            lastWorld = world;
+            // Swap in the stored cluster graph for this server and dimension
+            String key = NavMeshStore.keyFor(world);
+            WORKER.execute(() -> NavMeshStore.open(key));
+        }
+
+        int dx = goal.getX() - start.getX(), dz = goal.getZ() - start.getZ();
+        int dy = goal.getY() - start.getY();
+        int distSq = dx * dx + dz * dz;
+
+        if (kind == Kind.NEW && !canFly && distSq <= SLICED_MAX_DIST * SLICED_MAX_DIST && Math.abs(dy) <= SLICED_MAX_DY) {
+            Request req = new Request();
+            req.sliced = new PathSearch(PassabilityCache.of(world), start, goal, canFly, reachDist,
+                SLICED_NODES, SLICED_OPEN);
+            current = req;
+            return req.future;
+        }
+
+        boolean hierarchical = !canFly && distSq > HIERARCHICAL_MIN_DIST * HIERARCHICAL_MIN_DIST;
+
+        int[] b;
+        if (hierarchical) {
+            b = snapshotBox(start, goal, HIERARCHICAL_MAX_REACH_XZ);
+        } else if (canFly) {
+            b = snapshotBox(start, goal, FLIGHT_MAX_REACH_XZ);
+        } else {
+            // Keep the incremental planner's box while the target stays and the player is well inside it
+            if (box == null || !goal.equals(boxGoal) || canFly != boxCanFly || !inside(box, start, INCREMENTAL_BOX_INSET)) {
+                box = snapshotBox(start, goal, SNAPSHOT_MAX_REACH_XZ);
+                boxGoal = goal;
+                boxCanFly = canFly;
+            }
+            b = box;
+        }
+
+        // Taken before the capture starts, so changes made while it runs are replayed, never missed
+        long changeSeq = BlockChangeQueue.currentSeq();
+        PassabilityCache cache = PassabilityCache.of(world);
+        PassabilitySnapshot snapshot = cache.beginSnapshot(b[0], b[1], b[2], b[3], b[4], b[5]);
+
+        Request req = new Request();
+        current = req;
+        req.cache = cache;
+        req.capturing = snapshot;
+        req.search = () -> {
+            if (req.cancelled) return;
+            try {
+                if (canFly) {
+                    req.future.complete(FlightPlanner.findPath(snapshot, start, goal, reachDist, () -> req.cancelled));
+                    return;
+                }
+                if (!hierarchical && kind == Kind.NEW) {
+                    // First path completes the future; each refinement after it waits for pollRefined()
+                    PathFinder.findAnytime(snapshot, start, goal, reachDist, () -> req.cancelled, result -> {
+                        if (!req.future.complete(result)) req.refined.set(result);
+                    });
+                    req.future.complete(null); // no-op unless no path was found at all
+                    return;
+                }
+                List<BlockPos> path;
+                if (hierarchical) {
+                    path = HierarchicalPathFinder.findPath(snapshot, start, goal, reachDist, changeSeq, () -> req.cancelled);
+                } else {
+                    path = IncrementalPathFinder.findPath(snapshot, start, goal, false, reachDist,
+                        b, kind == Kind.STUCK, changeSeq, () -> req.cancelled);
+                }
+                PathFinder.PathResult result = path != null ? new PathFinder.PathResult(path, false) : null;
+                // Nothing complete within budget: best-effort block-level search, possibly partial
+                if (result == null && !req.cancelled) {
+                    result = PathFinder.findBestEffort(snapshot, start, goal, false, reachDist, () -> req.cancelled);
+                }
+                req.future.complete(result); // no-op if the future was cancelled meanwhile
+            } catch (Throwable t) {
+                SolarHelperClient.LOGGER.error("Background path search failed", t);
+                req.future.completeExceptionally(t);
+            }
+        };
+        capture(req);
+        return req.future;
+    }
+
+    /** Captures the next slice of a request's snapshot; posts its search once it's all in. */
+    private static void capture(Request req) {
+        if (!req.cache.captureSome(req.capturing, FRAME_BUDGET_NS)) return;
+        req.capturing = null;
+        WORKER.execute(req.search);
+    }
+
+    /**
+     * Captures more of the current request's snapshot, or steps the current time-sliced
+     * search, for up to FRAME_BUDGET_NS. Called once per frame on the render thread.
+     */
+    public static void tickFrame() {
+        Request req = current;
+        if (req == null || req.future.isDone()) return;
+        if (req.capturing != null) {
+            capture(req);
+            return;
+        }
+        if (req.sliced == null) return;
+        if (req.sliced.step(FRAME_BUDGET_NS) != PathSearch.Status.RUNNING) {
+            req.future.complete(req.sliced.result(true));
+        }
+    }
+
+    /**
+     * Takes the latest refinement of the current request's path, or null if there is none
+     * since the last call. Only anytime searches produce refinements, always complete
+     * paths from the same start, each shorter than the last. Render thread only.
+     */
+    public static PathFinder.PathResult pollRefined() {
+        Request req = current;
+        return req == null ? null : req.refined.getAndSet(null);
+    }
+
+    /** Writes the stored cluster graph to disk if it changed. Called on disconnect. */
+    public static void flush() {
+        WORKER.execute(NavMeshStore::save);
+    }
+
+    /** Cancels the search in flight, if any. Render thread only. */
+    public static void cancel() {
+        if (current != null) {
+            current.cancelled = true;
+            current.future.cancel(false);
+            current = null;
+        }
+    }
+
+    /** Block box around start and goal plus margins, capped to reachXZ / SNAPSHOT_MAX_REACH_Y from start. */
+    private static int[] snapshotBox(BlockPos start, BlockPos goal, int reachXZ) {
+        return new int[] {
+            clamp(Math.min(start.getX(), goal.getX()) - SNAPSHOT_MARGIN_XZ, start.getX(), reachXZ),
+            clamp(Math.min(start.getY(), goal.getY()) - SNAPSHOT_MARGIN_Y,  start.getY(), SNAPSHOT_MAX_REACH_Y),
+            clamp(Math.min(start.getZ(), goal.getZ()) - SNAPSHOT_MARGIN_XZ, start.getZ(), reachXZ),
+            clamp(Math.max(start.getX(), goal.getX()) + SNAPSHOT_MARGIN_XZ, start.getX(), reachXZ),
+            clamp(Math.max(start.getY(), goal.getY()) + SNAPSHOT_MARGIN_Y,  start.getY(), SNAPSHOT_MAX_REACH_Y),
+            clamp(Math.max(start.getZ(), goal.getZ()) + SNAPSHOT_MARGIN_XZ, start.getZ(), reachXZ)
+        };
+    }
+
+    private static boolean inside(int[] b, BlockPos pos, int inset) {
+        return pos.getX() >= b[0] + inset && pos.getX() <= b[3] - inset
+            && pos.getY() >= b[1] + inset && pos.getY() <= b[4] - inset
+            && pos.getZ() >= b[2] + inset && pos.getZ() <= b[5] - inset;
+    }
+
+    private static int clamp(int value, int center, int reach) {
+        return Math.max(center - reach, Math.min(center + reach, value));
+    }
+}
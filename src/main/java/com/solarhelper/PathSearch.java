@@ -0,0 +1,190 @@
+package com.solarhelper;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * One A* search that can be run a slice at a time.
+ *
+ * The open set, scores and progress live in the object, so step() can give it a
+ * nanosecond budget per frame and pick up exactly where the last slice stopped.
+ * PathFinder's blocking searches run the same loop to completion.
+ *
+ * With a weight above 1 the search is an ARA* run: the heuristic is inflated so a first
+ * path turns up after few expansions, and improve() then lowers the weight and resumes,
+ * keeping every g found so far. Nodes that get cheaper after being expanded wait in an
+ * inconsistent list until the next improve() instead of being expanded again.
+ *
+ * Not thread-safe; confined to whichever thread steps it.
+ */
+final class PathSearch {
+
+    enum Status { RUNNING, FOUND, FAILED }
+
+    // How many expansions step() runs between clock reads
+    private static final int TIME_CHECK_INTERVAL = 16;
+
+    private final PassabilityView view;
+    private final boolean canFly;
+    private final int gx, gy, gz;
+    private final double reachSq;
+    private final PathNodeTable nodes;
+    private final NodeHeap open;
+    private final long[] neighbors = new long[PathFinder.MAX_NEIGHBORS];
+    private final boolean anytime;
+    private final IntArrayList incons = new IntArrayList();
+    private double weight;
+
+    private final int startSlot;
+    // Expanded node closest to the goal, for a partial result
+    private int bestSlot;
+    private double bestH;
+    private int goalSlot = PathNodeTable.NONE;
+
+    private int iterations = 0;
+    private int reopens = 0;
+    private Status status = Status.RUNNING;
+
+    /** A search with its own node storage — for searches that live across frames. */
+    PathSearch(PassabilityView view, BlockPos start, BlockPos goal, boolean canFly, double reachDist) {
+        this(view, start, goal, canFly, reachDist, new PathNodeTable(), new NodeHeap());
+    }
+
+    /** A search on borrowed node storage, which it clears; the storage must not be shared while it runs. */
+    PathSearch(PassabilityView view, BlockPos start, BlockPos goal, boolean canFly, double reachDist,
+               PathNodeTable nodes, NodeHeap open) {
+        this(view, start, goal, canFly, reachDist, nodes, open, 1.0);
+    }
+
+    /** Like the above, with the heuristic inflated by weight; above 1 the search can be improve()d. */
+    PathSearch(PassabilityView view, BlockPos start, BlockPos goal, boolean canFly, double reachDist,
+               PathNodeTable nodes, NodeHeap open, double weight) {
+        this.view = view;
+        this.weight = weight;
+        this.anytime = weight > 1.0;
+        this.canFly = canFly;
+        this.gx = goal.getX();
+        this.gy = goal.getY();
+        this.gz = goal.getZ();
+        this.reachSq = reachDist * reachDist;
+        this.nodes = nodes;
+        this.open = open;
+        nodes.clear();
+        open.clear();
+
+        // Snap start to a valid standing position
+        start = PathFinder.snapToGround(view, start, canFly);
+        startSlot = nodes.findOrAdd(start.asLong());
+        nodes.set(startSlot, 0, PathNodeTable.NONE);
+        bestSlot = startSlot;
+        bestH = PathFinder.heuristic(start.asLong(), gx, gy, gz);
+        open.push(startSlot, weight * bestH);
+    }
+
+    Status status() { return status; }
+
+    /** Runs for about budgetNanos (at least one expansion), then returns the status. */
+    Status step(long budgetNanos) {
+        long deadline = System.nanoTime() + budgetNanos;
+        while (run(TIME_CHECK_INTERVAL) == Status.RUNNING) {
+            if (System.nanoTime() >= deadline) break;
+        }
+        return status;
+    }
+
+    /**
+     * ARA*: once a path is found, lowers the weight to newWeight and resumes — keeping
+     * every g found so far — so the next run() finds a path at least as good. Each round
+     * gets a fresh expansion budget. Returns false (and does nothing) if no path has been
+     * found, or if the search wasn't started with a weight above 1.
+     */
+    boolean improve(double newWeight) {
+        if (!anytime || status != Status.FOUND) return false;
+        weight = newWeight;
+        nodes.reopenAll();
+        // The goal found so far stays a candidate; if it is still the cheapest, the round ends at once
+        open.push(goalSlot, 0);
+        for (int i = 0; i < incons.size(); i++) open.push(incons.getInt(i), 0);
+        incons.clear();
+        open.rekey(this::key);
+        goalSlot = PathNodeTable.NONE;
+        iterations = 0;
+        status = Status.RUNNING;
+        return true;
+    }
+
+    private double key(int slot) {
+        return nodes.g(slot) + weight * PathFinder.heuristic(nodes.pos(slot), gx, gy, gz);
+    }
+
+    /** Runs up to maxExpansions node expansions, then returns the status. */
+    Status run(int maxExpansions) {
+        for (int n = 0; n < maxExpansions && status == Status.RUNNING; n++) {
+            if (open.isEmpty() || iterations++ >= PathFinder.MAX_ITERATIONS) {
+                status = Status.FAILED;
+                break;
+            }
+            expand(open.pop());
+        }
+        return status;
+    }
+
+    private void expand(int current) {
+        long currentPos = nodes.pos(current);
+        double currentG = nodes.g(current);
+        if (nodes.close(current)) reopens++;
+
+        int cx = BlockPos.unpackLongX(currentPos);
+        int cy = BlockPos.unpackLongY(currentPos);
+        int cz = BlockPos.unpackLongZ(currentPos);
+
+        // Close enough to interact with the head
+        if (PathFinder.squaredDistance(cx, cy, cz, gx, gy, gz) <= reachSq) {
+            goalSlot = current;
+            status = Status.FOUND;
+            return;
+        }
+
+        double h = PathFinder.heuristic(currentPos, gx, gy, gz);
+        if (h < bestH) {
+            bestH = h;
+            bestSlot = current;
+        }
+
+        int count = PathFinder.getNeighbors(view, cx, cy, cz, canFly, neighbors);
+        for (int i = 0; i < count; i++) {
+            long neighborPos = neighbors[i];
+            double newG = currentG + PathFinder.moveCost(view, cx, cy, cz, BlockPos.unpackLongX(neighborPos),
+                BlockPos.unpackLongY(neighborPos), BlockPos.unpackLongZ(neighborPos));
+            int slot = nodes.findOrAdd(neighborPos);
+            if (newG < nodes.g(slot)) {
+                nodes.set(slot, newG, current);
+                if (anytime && nodes.isClosed(slot)) {
+                    incons.add(slot); // expanded already this round; requeued by improve()
+                } else {
+                    // Queues the node, or lowers its key if it's already in the open set
+                    open.push(slot, newG + weight * PathFinder.heuristic(neighborPos, gx, gy, gz));
+                }
+            }
+        }
+    }
+
+    /**
+     * The path once the search has finished: complete if the goal was reached; otherwise,
+     * if bestEffort, partial up to the expanded node closest to the goal. Null if there is
+     * no such path or the search is still running.
+     */
+    PathFinder.PathResult result(boolean bestEffort) {
+        if (status == Status.FOUND) {
+            return new PathFinder.PathResult(PathFinder.reconstructPath(view, nodes, goalSlot), false);
+        }
+        if (status == Status.FAILED && bestEffort && bestSlot != startSlot) {
+            return new PathFinder.PathResult(PathFinder.reconstructPath(view, nodes, bestSlot), true);
+        }
+        return null;
+    }
+
+    PathFinder.SearchStats stats() {
+        return new PathFinder.SearchStats(iterations, nodes.size(), open.peakSize(), open.decreaseKeys(), reopens);
+    }
+}
@@ -0,0 +1,331 @@
+package com.solarhelper;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Walking connectivity index for the head seeker: answers "can I walk to within
+ * interaction range of this head from here" without running a search.
+ *
+ * A background flood fill collects every standing position reachable on foot from the
+ * player, over the same moves PathFinder uses. Positions joined by moves that work both
+ * ways are merged into one component (union-find); one-way moves (drops) become edges of
+ * a small component graph. A query looks up the player's component, takes the set of
+ * components reachable from it on that graph (cached per component), and checks the
+ * positions around the head against it — a constant number of hash lookups.
+ *
+ * The index covers a box around the player and all heads. Block or chunk changes inside
+ * it mark it stale; a stale index answers "reachable" until a rebuild (throttled) lands.
+ * Anything the index can't vouch for — the player outside it, a head outside the box, a
+ * fill that hit its cap or came near the box edge (past it the snapshot reads as solid, so
+ * a route out and back in would go unseen) — also answers "reachable", so it only ever
+ * rules heads out.
+ */
+public final class ReachabilityIndex {
+
+    // Heads can be clicked from a few blocks away: eye within this of the head's centre
+    private static final double INTERACT_REACH = 4.5;
+    private static final double EYE_HEIGHT = 1.62;
+    private static final int MARGIN = 16;
+    private static final int MAX_REACH_XZ = 192;
+    private static final int MAX_REACH_Y = 64;
+    private static final int MAX_CELLS = 300_000;
+    // Moves from a cell read blocks up to this far from it (jump reach plus run-up, drops
+    // plus the ground under them), so a cell this close to the box may have moves out of it
+    private static final int EDGE = PathFinder.MOVE_REACH + 1;
+    private static final long REBUILD_INTERVAL_NS = 2_000_000_000L;
+
+    // Feet offsets (dx, dy, dz) from the head block whose eye is within INTERACT_REACH of it
+    private static final int[] REACH_OFFSETS = reachOffsets();
+
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "solarhelper-reachability");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static volatile Index current = null;
+    private static volatile boolean building = false;
+    private static ClientWorld indexWorld = null; // render thread only
+    private static long lastBuildNs = 0;
+
+    private ReachabilityIndex() {}
+
+    /** One finished flood fill. Immutable apart from the render-thread reach cache. */
+    private static final class Index {
+        final int minX, minY, minZ, maxX, maxY, maxZ;
+        final Long2IntOpenHashMap component; // standing position → component id
+        final int[][] successors;            // component → components one drop away
+        final boolean complete;              // false if the fill hit MAX_CELLS or the box edge
+        volatile boolean stale = false;
+        final Map<Integer, BitSet> reachCache = new HashMap<>();
+
+        Index(int[] box, Long2IntOpenHashMap component, int[][] successors, boolean complete) {
+            this.minX = box[0]; this.minY = box[1]; this.minZ = box[2];
+            this.maxX = box[3]; this.maxY = box[4]; this.maxZ = box[5];
+            this.component = component;
+            this.successors = successors;
+            this.complete = complete;
+        }
+
+        boolean contains(int x, int y, int z, int inset) {
+            return x >= minX + inset && x <= maxX - inset
+                && y >= minY + inset && y <= maxY - inset
+                && z >= minZ + inset && z <= maxZ - inset;
+        }
+
+        /** Components reachable from comp (including itself). */
+        BitSet reachableFrom(int comp) {
+            BitSet seen = reachCache.get(comp);
+            if (seen != null) return seen;
+            seen = new BitSet(successors.length);
+            IntArrayList stack = new IntArrayList();
+            seen.set(comp);
+            stack.add(comp);
+            while (!stack.isEmpty()) {
+                int c = stack.popInt();
+                for (int next : successors[c]) {
+                    if (!seen.get(next)) {
+                        seen.set(next);
+                        stack.add(next);
+                    }
+                }
+            }
+            reachCache.put(comp, seen);
+            return seen;
+        }
+    }
+
+    // ── Queries (render thread) ─────────────────────────────────────────────
+
+    /**
+     * False only if the index shows head can't be walked to (within interaction range)
+     * from feet. Flying players can reach anything, so callers should skip the check then.
+     */
+    public static boolean isReachable(BlockPos feet, BlockPos head) {
+        Index idx = current;
+        if (idx == null || idx.stale) return true;
+        if (!idx.contains(head.getX(), head.getY(), head.getZ(), 0)) return true;
+
+        int from = -1;
+        // Mid-jump or mid-drop the feet are above the standing position
+        for (int dy = 0; dy <= 3 && from < 0; dy++) {
+            from = idx.component.get(BlockPos.asLong(feet.getX(), feet.getY() - dy, feet.getZ()));
+        }
+        if (from < 0) return true;
+
+        BitSet reach = idx.reachableFrom(from);
+        for (int i = 0; i < REACH_OFFSETS.length; i += 3) {
+            int comp = idx.component.get(BlockPos.asLong(
+                head.getX() + REACH_OFFSETS[i], head.getY() + REACH_OFFSETS[i + 1], head.getZ() + REACH_OFFSETS[i + 2]));
+            if (comp >= 0 && reach.get(comp)) return true;
+        }
+        // Everything reachable from the player is in a complete fill, so the head isn't
+        return !idx.complete;
+    }
+
+    /**
+     * Starts a rebuild around the player and heads if the index is missing, stale or no
+     * longer covers them (at most once per REBUILD_INTERVAL_NS). Called every frame while
+     * the head seeker runs. Nothing is rebuilt while the player isn't standing on the
+     * ground: mid-jump, falling or flying the feet aren't on a standing position, so the
+     * index would never seem to cover them (and flying players skip it anyway).
+     */
+    public static void update(ClientWorld world, BlockPos feet, boolean grounded, Collection<BlockPos> heads) {
+        if (world != indexWorld) {
+            current = null;
+            indexWorld = world;
+        }
+        if (building || !grounded || heads.isEmpty()) return;
+        Index idx = current;
+        if (idx != null && !idx.stale && covers(idx, feet, heads)) return;
+        long now = System.nanoTime();
+        if (idx != null && now - lastBuildNs < REBUILD_INTERVAL_NS) return;
+        lastBuildNs = now;
+
+        int[] box = box(feet, heads);
+        PassabilitySnapshot snapshot = PassabilityCache.of(world).snapshot(box[0], box[1], box[2], box[3], box[4], box[5]);
+        building = true;
+        WORKER.execute(() -> {
+            try {
+                Index built = build(snapshot, feet, box);
+                if (indexWorld == world) current = built;
+            } catch (Throwable t) {
+                SolarHelperClient.LOGGER.error("Reachability index build failed", t);
+            } finally {
+                building = false;
+            }
+        });
+    }
+
+    /** Marks the index stale if pos lies inside it. */
+    public static void onBlockChanged(BlockPos pos) {
+        Index idx = current;
+        if (idx != null && idx.contains(pos.getX(), pos.getY(), pos.getZ(), -4)) idx.stale = true;
+    }
+
+    /** Marks the index stale if the chunk column overlaps it. */
+    public static void onChunkChanged(int cx, int cz) {
+        Index idx = current;
+        if (idx != null && (cx << 4) + 15 >= idx.minX && (cx << 4) <= idx.maxX
+                && (cz << 4) + 15 >= idx.minZ && (cz << 4) <= idx.maxZ) {
+            idx.stale = true;
+        }
+    }
+
+    private static boolean covers(Index idx, BlockPos feet, Collection<BlockPos> heads) {
+        if (idx.component.get(feet.asLong()) < 0 && idx.component.get(feet.down().asLong()) < 0) return false;
+        for (BlockPos head : heads) {
+            if (!idx.contains(head.getX(), head.getY(), head.getZ(), 0)) return false;
+        }
+        return true;
+    }
+
+    /** Box around the player and every head plus MARGIN, capped around the player. */
+    private static int[] box(BlockPos feet, Collection<BlockPos> heads) {
+        int minX = feet.getX(), minY = feet.getY(), minZ = feet.getZ();
+        int maxX = minX, maxY = minY, maxZ = minZ;
+        for (BlockPos h : heads) {
+            minX = Math.min(minX, h.getX()); maxX = Math.max(maxX, h.getX());
+            minY = Math.min(minY, h.getY()); maxY = Math.max(maxY, h.getY());
+            minZ = Math.min(minZ, h.getZ()); maxZ = Math.max(maxZ, h.getZ());
+        }
+        return new int[] {
+            Math.max(minX - MARGIN, feet.getX() - MAX_REACH_XZ),
+            Math.max(minY - MARGIN, feet.getY() - MAX_REACH_Y),
+            Math.max(minZ - MARGIN, feet.getZ() - MAX_REACH_XZ),
+            Math.min(maxX + MARGIN, feet.getX() + MAX_REACH_XZ),
+            Math.min(maxY + MARGIN, feet.getY() + MAX_REACH_Y),
+            Math.min(maxZ + MARGIN, feet.getZ() + MAX_REACH_XZ)
+        };
+    }
+
+    // ── Building (worker thread) ────────────────────────────────────────────
+
+    private static boolean inBox(int[] box, int x, int y, int z, int inset) {
+        return x >= box[0] + inset && y >= box[1] + inset && z >= box[2] + inset
+            && x <= box[3] - inset && y <= box[4] - inset && z <= box[5] - inset;
+    }
+
+    private static Index build(PassabilityView view, BlockPos feet, int[] box) {
+        BlockPos origin = PathFinder.snapToGround(view, feet, false);
+
+        // Forward flood fill from the player; every move is recorded as an edge
+        Long2IntOpenHashMap index = new Long2IntOpenHashMap();
+        index.defaultReturnValue(-1);
+        LongArrayList cells = new LongArrayList();
+        IntArrayList edgeFrom = new IntArrayList();
+        IntArrayList edgeTo = new IntArrayList();
+        index.put(origin.asLong(), 0);
+        cells.add(origin.asLong());
+        boolean complete = true;
+        long[] neighbors = new long[PathFinder.MAX_NEIGHBORS];
+
+        for (int i = 0; i < cells.size(); i++) {
+            long cell = cells.getLong(i);
+            int x = BlockPos.unpackLongX(cell), y = BlockPos.unpackLongY(cell), z = BlockPos.unpackLongZ(cell);
+            // Moves out of the box wouldn't show up, so the fill can't vouch for what it missed
+            if (!inBox(box, x, y, z, EDGE)) complete = false;
+            int count = PathFinder.getNeighbors(view, x, y, z, false, neighbors);
+            for (int k = 0; k < count; k++) {
+                long key = neighbors[k];
+                int j = index.get(key);
+                if (j < 0) {
+                    if (!inBox(box, BlockPos.unpackLongX(key), BlockPos.unpackLongY(key), BlockPos.unpackLongZ(key), 0)) {
+                        continue;
+                    }
+                    if (cells.size() >= MAX_CELLS) {
+                        complete = false;
+                        continue;
+                    }
+                    j = cells.size();
+                    index.put(key, j);
+                    cells.add(key);
+                }
+                edgeFrom.add(i);
+                edgeTo.add(j);
+            }
+        }
+
+        // Moves that work both ways merge their ends into one component
+        LongOpenHashSet edgeSet = new LongOpenHashSet(edgeFrom.size());
+        for (int e = 0; e < edgeFrom.size(); e++) edgeSet.add(pair(edgeFrom.getInt(e), edgeTo.getInt(e)));
+        int[] parent = new int[cells.size()];
+        for (int i = 0; i < parent.length; i++) parent[i] = i;
+        for (int e = 0; e < edgeFrom.size(); e++) {
+            int a = edgeFrom.getInt(e), b = edgeTo.getInt(e);
+            if (a < b && edgeSet.contains(pair(b, a))) union(parent, a, b);
+        }
+
+        // Compact component ids
+        int[] compOfRoot = new int[cells.size()];
+        Arrays.fill(compOfRoot, -1);
+        int comps = 0;
+        Long2IntOpenHashMap component = new Long2IntOpenHashMap(cells.size());
+        component.defaultReturnValue(-1);
+        int[] compOf = new int[cells.size()];
+        for (int i = 0; i < cells.size(); i++) {
+            int root = find(parent, i);
+            if (compOfRoot[root] < 0) compOfRoot[root] = comps++;
+            compOf[i] = compOfRoot[root];
+            component.put(cells.getLong(i), compOf[i]);
+        }
+
+        // One-way moves become edges between components
+        List<IntArrayList> succ = new ArrayList<>(comps);
+        for (int c = 0; c < comps; c++) succ.add(new IntArrayList());
+        LongOpenHashSet compEdges = new LongOpenHashSet();
+        for (int e = 0; e < edgeFrom.size(); e++) {
+            int ca = compOf[edgeFrom.getInt(e)], cb = compOf[edgeTo.getInt(e)];
+            if (ca != cb && compEdges.add(pair(ca, cb))) succ.get(ca).add(cb);
+        }
+        int[][] successors = new int[comps][];
+        for (int c = 0; c < comps; c++) successors[c] = succ.get(c).toIntArray();
+
+        return new Index(box, component, successors, complete);
+    }
+
+    private static long pair(int a, int b) {
+        return (long) a << 32 | (b & 0xFFFFFFFFL);
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]]; // path halving
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a), rb = find(parent, b);
+        if (ra != rb) parent[ra] = rb;
+    }
+
+    private static int[] reachOffsets() {
+        IntArrayList offsets = new IntArrayList();
+        int r = (int) Math.ceil(INTERACT_REACH) + 1;
+        for (int dx = -r; dx <= r; dx++) {
+            for (int dy = -r - 2; dy <= r; dy++) {
+                for (int dz = -r; dz <= r; dz++) {
+                    // Eye of a player standing at (dx, dy, dz) to the head's centre
+                    double ey = dy + EYE_HEIGHT - 0.5;
+                    if (dx * dx + ey * ey + dz * dz <= INTERACT_REACH * INTERACT_REACH) {
+                        offsets.add(dx);
+                        offsets.add(dy);
+                        offsets.add(dz);
+                    }
+                }
+            }
+        }
+        return offsets.toIntArray();
+    }
+}
@@ -0,0 +1,220 @@
+package com.solarhelper;
+
+import it.unimi.dsi.fastutil.objects.Reference2ByteOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.registry.tag.FluidTags;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.EmptyBlockView;
+import net.minecraft.world.chunk.ChunkSection;
+
+/**
+ * Solid/water occupancy bitmap of the dropper shaft, for DropperSolver's rollouts.
+ *
+ * Covers every block the player could fall through from where the solver was switched
+ * on: SHAFT_RADIUS blocks around the start on X/Z (more than a whole lookahead of air
+ * control drifts) and from just above the start down SHAFT_DEPTH blocks. Two bits per
+ * block — solid (a full collision cube that isn't water, as DropperSolver has always
+ * counted it) and water — so a rollout's collision and landing tests are bit lookups
+ * instead of getBlockState calls.
+ *
+ * Filled one chunk column at a time, from the section palettes, the first time a query
+ * lands in it while the chunk is loaded; a column that isn't loaded yet is answered from
+ * the world and filled once it arrives. Block changes update single bits, chunk loads and
+ * unloads mark the column for refilling. Outside the shaft queries go to the world.
+ *
+ * Client thread only, except through readOnly(): that view never fills or caches, so
+ * worker threads can share it while the client thread waits for them.
+ */
+final class ShaftMap {
+
+    private static final int SHAFT_RADIUS = 24;
+    private static final int SHAFT_DEPTH = 400;
+    // Room above the start for the player's box and an upward launch
+    private static final int SHAFT_HEADROOM = 4;
+
+    private static final byte SOLID = 1, WATER = 2;
+
+    private static ClientWorld world = null;
+    private static int minX, minY, minZ, sizeX, sizeY, sizeZ;
+    private static long[] solid = null, water = null;
+    // Chunk columns overlapping the shaft, row-major from (minX >> 4, minZ >> 4): filled yet?
+    private static int chunkMinX, chunkMinZ, chunksX, chunksZ;
+    private static boolean[] filled = null;
+    // Block state → SOLID | WATER, cached for the shaft's lifetime
+    private static final Reference2ByteOpenHashMap<BlockState> FLAGS = new Reference2ByteOpenHashMap<>();
+    private static final BlockPos.Mutable PROBE = new BlockPos.Mutable();
+
+    private ShaftMap() {}
+
+    /** Starts a map of the shaft below (x, y, z), filling the columns already loaded. */
+    static void build(ClientWorld newWorld, double x, double y, double z) {
+        world = newWorld;
+        int cx = (int) Math.floor(x), cz = (int) Math.floor(z);
+        minX = cx - SHAFT_RADIUS;
+        minZ = cz - SHAFT_RADIUS;
+        sizeX = sizeZ = 2 * SHAFT_RADIUS + 1;
+        int top = Math.min(newWorld.getTopYInclusive(), (int) Math.floor(y) + SHAFT_HEADROOM);
+        minY = Math.max(newWorld.getBottomY(), (int) Math.floor(y) - SHAFT_DEPTH);
+        sizeY = Math.max(0, top - minY + 1);
+        int words = (sizeX * sizeY * sizeZ + 63) >>> 6;
+        solid = new long[words];
+        water = new long[words];
+
+        chunkMinX = minX >> 4;
+        chunkMinZ = minZ >> 4;
+        chunksX = ((minX + sizeX - 1) >> 4) - chunkMinX + 1;
+        chunksZ = ((minZ + sizeZ - 1) >> 4) - chunkMinZ + 1;
+        filled = new boolean[chunksX * chunksZ];
+        FLAGS.clear();
+        for (int i = 0; i < filled.length; i++) fill(i);
+    }
+
+    /** Drops the map when the solver stops. */
+    static void clear() {
+        world = null;
+        solid = null;
+        water = null;
+        filled = null;
+        FLAGS.clear();
+    }
+
+    // ── Views ───────────────────────────────────────────────────────────────
+
+    /** The map as a view for rollouts on the client thread (fills columns as needed). */
+    static DropperSolver.ShaftView live(ClientWorld w) {
+        return new DropperSolver.ShaftView() {
+            @Override public boolean isSolid(int x, int y, int z) { return ShaftMap.isSolid(w, x, y, z); }
+            @Override public boolean isWater(int x, int y, int z) { return ShaftMap.isWater(w, x, y, z); }
+        };
+    }
+
+    /**
+     * Fills every loaded column and returns a view that only reads: bits where the map
+     * covers, otherwise the world's block state classified without touching the cache.
+     * For rollouts on other threads; valid while the client thread waits on them, so
+     * nothing changes the map or the world underneath.
+     */
+    static DropperSolver.ShaftView readOnly(ClientWorld w) {
+        if (w == world && filled != null) {
+            for (int i = 0; i < filled.length; i++) if (!filled[i]) fill(i);
+        }
+        return new DropperSolver.ShaftView() {
+            @Override public boolean isSolid(int x, int y, int z) { return (peek(w, x, y, z) & SOLID) != 0; }
+            @Override public boolean isWater(int x, int y, int z) { return (peek(w, x, y, z) & WATER) != 0; }
+        };
+    }
+
+    private static byte peek(ClientWorld w, int x, int y, int z) {
+        if (w == world && solid != null) {
+            int lx = x - minX, ly = y - minY, lz = z - minZ;
+            if (lx >= 0 && ly >= 0 && lz >= 0 && lx < sizeX && ly < sizeY && lz < sizeZ
+                    && filled[((z >> 4) - chunkMinZ) * chunksX + ((x >> 4) - chunkMinX)]) {
+                int bit = (ly * sizeZ + lz) * sizeX + lx;
+                return (byte) (((solid[bit >>> 6] >>> bit) & 1) * SOLID | ((water[bit >>> 6] >>> bit) & 1) * WATER);
+            }
+        }
+        return classify(w.getBlockState(new BlockPos(x, y, z)));
+    }
+
+    // ── Queries ─────────────────────────────────────────────────────────────
+
+    /** Whether the block at (x, y, z) is solid for the player (and not water). */
+    static boolean isSolid(ClientWorld w, int x, int y, int z) {
+        int bit = bit(w, x, y, z);
+        if (bit >= 0) return (solid[bit >>> 6] & (1L << bit)) != 0;
+        return (flags(w, x, y, z) & SOLID) != 0;
+    }
+
+    /** Whether the block at (x, y, z) holds water. */
+    static boolean isWater(ClientWorld w, int x, int y, int z) {
+        int bit = bit(w, x, y, z);
+        if (bit >= 0) return (water[bit >>> 6] & (1L << bit)) != 0;
+        return (flags(w, x, y, z) & WATER) != 0;
+    }
+
+    /** Bit index of (x, y, z), filling its column if needed; -1 if the world must be asked instead. */
+    private static int bit(ClientWorld w, int x, int y, int z) {
+        if (w != world || solid == null) return -1;
+        int lx = x - minX, ly = y - minY, lz = z - minZ;
+        if (lx < 0 || ly < 0 || lz < 0 || lx >= sizeX || ly >= sizeY || lz >= sizeZ) return -1;
+        int column = ((z >> 4) - chunkMinZ) * chunksX + ((x >> 4) - chunkMinX);
+        if (!filled[column] && !fill(column)) return -1;
+        return (ly * sizeZ + lz) * sizeX + lx;
+    }
+
+    // ── Updates ─────────────────────────────────────────────────────────────
+
+    /** Keeps the bits of a changed block current. */
+    static void onBlockChanged(ClientWorld w, BlockPos pos) {
+        if (w != world || solid == null) return;
+        int lx = pos.getX() - minX, ly = pos.getY() - minY, lz = pos.getZ() - minZ;
+        if (lx < 0 || ly < 0 || lz < 0 || lx >= sizeX || ly >= sizeY || lz >= sizeZ) return;
+        int column = ((pos.getZ() >> 4) - chunkMinZ) * chunksX + ((pos.getX() >> 4) - chunkMinX);
+        if (filled[column]) set((ly * sizeZ + lz) * sizeX + lx, flags(w.getBlockState(pos)));
+    }
+
+    /** A chunk column was loaded or unloaded: refill it on its next query. */
+    static void onChunkChanged(ClientWorld w, int cx, int cz) {
+        if (w != world || filled == null) return;
+        int i = cx - chunkMinX, k = cz - chunkMinZ;
+        if (i >= 0 && k >= 0 && i < chunksX && k < chunksZ) filled[k * chunksX + i] = false;
+    }
+
+    // ── Filling ─────────────────────────────────────────────────────────────
+
+    /** Fills one chunk column's part of the shaft from its sections; false if it isn't loaded. */
+    private static boolean fill(int column) {
+        int cx = chunkMinX + column % chunksX, cz = chunkMinZ + column / chunksX;
+        if (!world.getChunkManager().isChunkLoaded(cx, cz)) return false;
+        ChunkSection[] sections = world.getChunk(cx, cz).getSectionArray();
+
+        int x0 = Math.max(minX, cx << 4), x1 = Math.min(minX + sizeX - 1, (cx << 4) + 15);
+        int z0 = Math.max(minZ, cz << 4), z1 = Math.min(minZ + sizeZ - 1, (cz << 4) + 15);
+        int y1 = minY + sizeY - 1;
+        for (int sy = minY >> 4; sy <= y1 >> 4; sy++) {
+            int index = world.sectionCoordToIndex(sy);
+            if (index < 0 || index >= sections.length) continue;
+            ChunkSection section = sections[index];
+            int ya = Math.max(minY, sy << 4), yb = Math.min(y1, (sy << 4) + 15);
+            // All-air sections (known from the palette) leave their bits clear
+            boolean empty = section.isEmpty();
+            for (int y = ya; y <= yb; y++) {
+                for (int z = z0; z <= z1; z++) {
+                    for (int x = x0; x <= x1; x++) {
+                        byte f = empty ? 0 : flags(section.getBlockState(x & 15, y & 15, z & 15));
+                        set(((y - minY) * sizeZ + (z - minZ)) * sizeX + (x - minX), f);
+                    }
+                }
+            }
+        }
+        filled[column] = true;
+        return true;
+    }
+
+    private static void set(int bit, byte f) {
+        long mask = 1L << bit;
+        if ((f & SOLID) != 0) solid[bit >>> 6] |= mask; else solid[bit >>> 6] &= ~mask;
+        if ((f & WATER) != 0) water[bit >>> 6] |= mask; else water[bit >>> 6] &= ~mask;
+    }
+
+    private static byte flags(ClientWorld w, int x, int y, int z) {
+        return flags(w.getBlockState(PROBE.set(x, y, z)));
+    }
+
+    private static byte flags(BlockState state) {
+        if (state.isAir()) return 0;
+        byte f = FLAGS.getOrDefault(state, (byte) -1);
+        if (f < 0) {
+            f = classify(state);
+            FLAGS.put(state, f);
+        }
+        return f;
+    }
+
+    private static byte classify(BlockState state) {
+        if (state.isAir()) return 0;
+        if (state.getFluidState().isIn(FluidTags.WATER)) return WATER;
+        return state.isSolidBlock(EmptyBlockView.INSTANCE, BlockPos.ORIGIN) ? SOLID : 0;
+    }
+}
@@ -1,6 +1,7 @@
 package com.solarhelper;
 
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
 import net.fabricmc.fabric.api.client.message.v1.ClientReceiveMessageEvents;
@@ -9,6 +10,7 @@ import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.screen.ingame.HandledScreen;
 import net.minecraft.client.option.KeyBinding;
 import net.minecraft.client.util.InputUtil;
+import net.minecraft.client.world.ClientWorld;
 import net.minecraft.item.Items;
 import net.minecraft.screen.slot.Slot;
 import net.minecraft.screen.slot.SlotActionType;
@@ -38,10 +40,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -138,6 +142,11 @@ public class SolarHelperClient implements ClientModInitializer {
         dropperNoWaterTicks = 0;
         cachedWaterCenter   = null;
         dropperLastFrameNs  = 0; // will be initialised on first render frame
+        DropperSolver.resetPlan();
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (client.world != null && client.player != null) {
+            ShaftMap.build(client.world, client.player.getX(), client.player.getY(), client.player.getZ());
+        }
     }
 
     public static void stopDropper() {
@@ -146,6 +155,7 @@ public class SolarHelperClient implements ClientModInitializer {
         dropperSideways = 0;
         cachedWaterCenter = null;
         dropperLastFrameNs = 0;
+        ShaftMap.clear();
     }
 
     /**
@@ -199,11 +209,24 @@ public class SolarHelperClient implements ClientModInitializer {
     private static int seekPathIndex = 0;            // current waypoint we're walking toward
     private static BlockPos currentWaypoint = null;  // the waypoint we're actively navigating to
     private static int pathRecalcCooldown = 0;       // ticks until we can recalculate path
+    // Background search in flight (PathPlanner) and the head it was requested for.
+    // The seeker keeps following seekPath until the result arrives.
+    private static CompletableFuture<PathFinder.PathResult> pendingPath = null;
+    private static BlockPos pendingPathTarget = null;
+    // Receding horizon: a partial seekPath ends short of the head, and the search for the
+    // next stretch (starting from its end) runs while we walk it
+    private static boolean seekPathPartial = false;
+    private static boolean pendingIsContinuation = false;
 
     // Stuck detection
     private static double lastSeekX = 0, lastSeekY = 0, lastSeekZ = 0;
     private static int stuckTicks = 0;          // how many ticks position hasn't changed
     private static boolean seekJumping = false;  // trying to jump over obstacle
+    private static int seekVertical = 0;         // while flying: +1 climb, -1 descend toward the waypoint
+
+    // Collection timing, reported when the seeker finishes a map
+    private static long headSeekStartNs = 0;
+    private static int headsCollected = 0;
 
     public static boolean isHeadSeekActive() {
         return headSeekActive;
@@ -322,6 +345,10 @@ public class SolarHelperClient implements ClientModInitializer {
         // Register chest ESP renderer
         ChestOutlineRenderer.register();
 
+        // Chunk (re)loads replace whole sections — drop any pathfinding data cached for them
+        ClientChunkEvents.CHUNK_LOAD.register((world, chunk) -> onClientChunkChanged(world, chunk.getPos().x, chunk.getPos().z));
+        ClientChunkEvents.CHUNK_UNLOAD.register((world, chunk) -> onClientChunkChanged(world, chunk.getPos().x, chunk.getPos().z));
+
         // Register auto-farm keybind (R key, rebindable in Options > Controls > Misc)
         autoFarmKeybind = KeyBindingHelper.registerKeyBinding(new KeyBinding(
             "key.solarhelper.autofarm",
@@ -374,9 +401,11 @@ public class SolarHelperClient implements ClientModInitializer {
         scheduler.execute(this::loadDictionary);
         scheduler.execute(this::checkForUpdates);
 
-        // Show update notification when the player joins a world/server
+        // On joining a world/server: rebuild the traversal table, show any update notification
         net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents.JOIN.register(
             (handler, sender, client) -> {
+                // Block tags are synced by now; path costs depend on them
+                TraversalTable.build();
                 if (pendingUpdateVersion == null) return;
                 final String ver = pendingUpdateVersion;
                 final String url = pendingUpdateUrl;
@@ -389,6 +418,11 @@ public class SolarHelperClient implements ClientModInitializer {
             }
         );
 
+        // Keep what the path planner learned about this world for next time
+        net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents.DISCONNECT.register(
+            (handler, client) -> PathPlanner.flush()
+        );
+
         // Listen for game messages (server-sent messages like join notifications)
         ClientReceiveMessageEvents.GAME.register((message, overlay) -> {
             if (overlay) return;
@@ -517,6 +551,9 @@ public class SolarHelperClient implements ClientModInitializer {
                     headSeekActive = true;
                     headSeekState = HeadSeekState.IDLE;
                     headSeekTarget = null;
+                    headSeekStartNs = System.nanoTime();
+                    headsCollected = 0;
+                    HeadRoutePlanner.reset();
                     pickNextHead();
                     sendLocalNotification(Text.empty()
                         .append(Text.literal("[").formatted(Formatting.DARK_GRAY))
@@ -1806,11 +1843,40 @@ public class SolarHelperClient implements ClientModInitializer {
 
         if (pathRecalcCooldown > 0) pathRecalcCooldown--;
 
+        // Advance a time-sliced path search, then pick up a finished one
+        PathPlanner.tickFrame();
+        pollPendingPath(client);
+        pollRefinedPath(client);
+        // A block change broke a stretch of path still ahead: repair now, before walking into it
+        if (headSeekState == HeadSeekState.MOVING && seekPath != null && pendingPath == null
+                && PathMonitor.poll(PassabilityCache.of(client.world), seekPath, seekPathIndex) >= 0) {
+            repairPath(client);
+        }
+
+        // Keep the reachability index and the visiting order covering the remaining heads
+        Set<BlockPos> remainingHeads = HeadOutlineRenderer.getHeadPositions();
+        ReachabilityIndex.update(client.world, client.player.getBlockPos(),
+            client.player.isOnGround() && !client.player.getAbilities().flying, remainingHeads);
+        HeadRoutePlanner.plan(client.world, client.player.getBlockPos(), remainingHeads);
+
+        // Drop the target as soon as the index shows it can't be walked to, if another head can be
+        if (headSeekTarget != null && !isHeadReachable(client, headSeekTarget)
+                && anyReachable(client, remainingHeads)) {
+            cancelPendingPath();
+            headSeekTarget = null;
+            seekPath = null;
+            currentWaypoint = null;
+            headSeekState = HeadSeekState.IDLE;
+        }
+
         // If we have no target, try to pick one
         if (headSeekTarget == null) {
             pickNextHead();
             if (headSeekTarget == null) {
                 // No heads left
+                long elapsedS = (System.nanoTime() - headSeekStartNs) / 1_000_000_000L;
+                int collected = headsCollected;
+                LOGGER.info("Head Seeker collected {} heads in {}s", collected, elapsedS);
                 stopHeadSeek();
                 client.execute(() -> {
                     if (client.player != null) {
@@ -1820,6 +1886,11 @@ public class SolarHelperClient implements ClientModInitializer {
                             .append(Text.literal("\u26A1").formatted(Formatting.YELLOW))
                             .append(Text.literal("] ").formatted(Formatting.DARK_GRAY))
                             .append(Text.literal("Head Seeker complete — no more heads!").formatted(Formatting.GREEN)), false);
+                        client.player.sendMessage(Text.empty()
+                            .append(Text.literal("  Collected ").formatted(Formatting.GRAY))
+                            .append(Text.literal(String.valueOf(collected)).formatted(Formatting.WHITE))
+                            .append(Text.literal(" heads in ").formatted(Formatting.GRAY))
+                            .append(Text.literal(String.format("%d:%02d", elapsedS / 60, elapsedS % 60)).formatted(Formatting.WHITE)), false);
                         client.player.sendMessage(Text.empty(), false);
                     }
                 });
@@ -1834,8 +1905,18 @@ public class SolarHelperClient implements ClientModInitializer {
         double horizDist = Math.sqrt(dx * dx + dz * dz);
         double totalDist = Math.sqrt(dx * dx + dy * dy + dz * dz);
 
+        // ── Path following ──
+        // Walking along a path, PathFollower picks the movement keys from the player's velocity
+        boolean following = headSeekState == HeadSeekState.MOVING && seekPath != null
+            && currentWaypoint != null && !client.player.getAbilities().flying;
+        if (following) {
+            PathFollower.update(PassabilityCache.of(client.world), client.player, seekPath, seekPathIndex);
+        } else {
+            PathFollower.stop();
+        }
+
         // ── Determine what to look at ──
-        // When MOVING, look at the current waypoint (next step on the path)
+        // When MOVING, look at the follower's lookahead point (or the current waypoint when flying)
         // When APPROACHING/INTERACTING, look at the head's exposed face
         double aimX, aimY, aimZ;
 
@@ -1850,6 +1931,10 @@ public class SolarHelperClient implements ClientModInitializer {
                 aimY = headSeekTarget.getY() + 0.5;
                 aimZ = headSeekTarget.getZ() + 0.5;
             }
+        } else if (following) {
+            aimX = PathFollower.lookX();
+            aimY = PathFollower.lookY() + 0.5;
+            aimZ = PathFollower.lookZ();
         } else if (currentWaypoint != null && headSeekState == HeadSeekState.MOVING) {
             // Look at the current waypoint, not the final head
             aimX = currentWaypoint.getX() + 0.5;
@@ -1895,6 +1980,8 @@ public class SolarHelperClient implements ClientModInitializer {
                 Math.pow(client.player.getY() - lastSeekY, 2) +
                 Math.pow(client.player.getZ() - lastSeekZ, 2)
             );
+            // While following, only progress along the path counts — sliding along a wall doesn't
+            if (following) movedDist = PathFollower.progressDelta();
             if (movedDist < 0.03) {
                 stuckTicks++;
             } else {
@@ -1935,9 +2022,14 @@ public class SolarHelperClient implements ClientModInitializer {
             double wpDx = currentWaypoint.getX() + 0.5 - client.player.getX();
             double wpDz = currentWaypoint.getZ() + 0.5 - client.player.getZ();
             double wpHorizDist = Math.sqrt(wpDx * wpDx + wpDz * wpDz);
+            // Flight waypoints are airborne, so height counts toward reaching them too
+            if (client.player.getAbilities().flying) {
+                double wpDy = currentWaypoint.getY() - client.player.getY();
+                wpHorizDist = Math.sqrt(wpHorizDist * wpHorizDist + wpDy * wpDy);
+            }
 
-            // Reached this waypoint — advance to next
-            if (wpHorizDist < 1.2) {
+            // Reached this waypoint, or the follower has already passed it — advance to next
+            if (wpHorizDist < 1.2 || (following && PathFollower.segment() >= seekPathIndex)) {
                 seekPathIndex++;
                 if (seekPathIndex < seekPath.size()) {
                     currentWaypoint = seekPath.get(seekPathIndex);
@@ -1966,7 +2058,8 @@ public class SolarHelperClient implements ClientModInitializer {
                 }
             }
             case ROTATING -> {
-                if (aimClose) {
+                // Wait for the first path so we turn toward its first waypoint, not the head
+                if (aimClose && pendingPath == null) {
                     headSeekState = HeadSeekState.MOVING;
                     lastSeekX = client.player.getX();
                     lastSeekY = client.player.getY();
@@ -1977,14 +2070,15 @@ public class SolarHelperClient implements ClientModInitializer {
                 // Flying toggle
                 boolean canFly = client.player.getAbilities().allowFlying;
                 boolean isFlying = client.player.getAbilities().flying;
+                seekVertical = 0;
                 if (currentWaypoint != null) {
                     double wpDy = currentWaypoint.getY() - client.player.getY();
                     if (wpDy > 1.5 && canFly && !isFlying && flyDoubleTapTick < 0) {
                         flyDoubleTapTick = 3;
                     }
-                    if (wpDy < -3.0 && isFlying && flyDoubleTapTick < 0) {
-                        flyDoubleTapTick = 3;
-                    }
+                    // FlightPlanner paths stay airborne: climb and descend along them
+                    // instead of dropping out of flight
+                    if (isFlying) seekVertical = wpDy > 0.5 ? 1 : wpDy < -0.5 ? -1 : 0;
                 }
 
                 // Switch to approach once the A* path is fully walked (waypoint == null)
@@ -1994,7 +2088,7 @@ public class SolarHelperClient implements ClientModInitializer {
                         headSeekState = HeadSeekState.APPROACHING;
                         seekPath = null;
                         currentWaypoint = null;
-                    } else if (currentWaypoint == null && pathRecalcCooldown <= 0) {
+                    } else if (currentWaypoint == null && pathRecalcCooldown <= 0 && pendingPath == null) {
                         // Path ended but we're still far — recompute
                         computePathToTarget(client);
                     }
@@ -2015,6 +2109,7 @@ public class SolarHelperClient implements ClientModInitializer {
                 // Check if the head was actually collected
                 if (!HeadOutlineRenderer.getHeadPositions().contains(headSeekTarget)) {
                     HeadOutlineRenderer.dismissHead(headSeekTarget);
+                    headsCollected++;
                     headSeekTarget = null;
                     seekPath = null;
                     currentWaypoint = null;
@@ -2047,12 +2142,112 @@ public class SolarHelperClient implements ClientModInitializer {
         }
     }
 
-    /** Computes an A* path from the player to near the current head target. */
+    /** Called by WorldMixin whenever a block changes in the client world. */
+    public static void onClientBlockChanged(ClientWorld world, BlockPos pos) {
+        PassabilityCache.onBlockChanged(world, pos);
+        HierarchicalPathFinder.CHANGES.postBlock(pos.getX(), pos.getY(), pos.getZ());
+        IncrementalPathFinder.CHANGES.postBlock(pos.getX(), pos.getY(), pos.getZ());
+        ReachabilityIndex.onBlockChanged(pos);
+        PathMonitor.onBlockChanged(pos);
+        ShaftMap.onBlockChanged(world, pos);
+    }
+
+    /** Called when a chunk column is loaded or unloaded in the client world. */
+    private static void onClientChunkChanged(ClientWorld world, int cx, int cz) {
+        PassabilityCache.onChunkChanged(world, cx, cz);
+        HierarchicalPathFinder.CHANGES.postColumn(cx, cz);
+        IncrementalPathFinder.CHANGES.postColumn(cx, cz);
+        ReachabilityIndex.onChunkChanged(cx, cz);
+        ShaftMap.onChunkChanged(world, cx, cz);
+    }
+
+    /**
+     * Requests an A* path from the player to near the current head target.
+     * The search runs in the background (PathPlanner); pollPendingPath installs the result.
+     */
     private static void computePathToTarget(MinecraftClient client) {
         if (client.player == null || client.world == null || headSeekTarget == null) return;
-        boolean canFly = client.player.getAbilities().allowFlying;
+        boolean canFly = plansFlight(client);
         BlockPos start = client.player.getBlockPos();
-        seekPath = PathFinder.findPath(client.world, start, headSeekTarget, canFly, 1.5);
+        pendingPath = PathPlanner.request(client.world, start, headSeekTarget, canFly, 1.5);
+        pendingPathTarget = headSeekTarget;
+        pendingIsContinuation = false;
+        pathRecalcCooldown = 40; // don't recalc for 2 seconds
+    }
+
+    /** Starts planning the next stretch from the end of the partial path we're walking. */
+    private static void requestContinuation(MinecraftClient client) {
+        if (client.world == null || headSeekTarget == null || seekPath == null || seekPath.isEmpty()) return;
+        boolean canFly = plansFlight(client);
+        BlockPos frontier = seekPath.get(seekPath.size() - 1);
+        pendingPath = PathPlanner.request(client.world, frontier, headSeekTarget, canFly, 1.5);
+        pendingPathTarget = headSeekTarget;
+        pendingIsContinuation = true;
+    }
+
+    /** Installs the background search result once it's done, if it's still for the current head. */
+    private static void pollPendingPath(MinecraftClient client) {
+        if (pendingPath == null || !pendingPath.isDone()) return;
+        CompletableFuture<PathFinder.PathResult> done = pendingPath;
+        pendingPath = null;
+        if (done.isCancelled() || done.isCompletedExceptionally()) return;
+        if (!pendingPathTarget.equals(headSeekTarget)) return;
+        PathFinder.PathResult result = done.join();
+        if (pendingIsContinuation && seekPath != null) {
+            extendPath(client, result);
+        } else {
+            applyPath(client, result);
+        }
+    }
+
+    /**
+     * Swaps in a shorter path once the anytime search refines the one we're walking,
+     * rejoining it at the waypoint nearest to where we are now.
+     */
+    private static void pollRefinedPath(MinecraftClient client) {
+        PathFinder.PathResult refined = PathPlanner.pollRefined();
+        // Refinements belong to the last request; only take them for a plain path to this head
+        if (refined == null || pendingPath != null || pendingIsContinuation || seekPath == null
+                || headSeekTarget == null || !headSeekTarget.equals(pendingPathTarget)) return;
+        List<BlockPos> path = refined.path();
+        BlockPos feet = client.player.getBlockPos();
+        int nearest = 0;
+        for (int i = 1; i < path.size(); i++) {
+            if (path.get(i).getSquaredDistance(feet) < path.get(nearest).getSquaredDistance(feet)) nearest = i;
+        }
+        // Already past the nearest one, on the way to the next: aim for the next
+        if (nearest + 1 < path.size()
+                && path.get(nearest + 1).getSquaredDistance(feet) < path.get(nearest + 1).getSquaredDistance(path.get(nearest))) {
+            nearest++;
+        }
+        seekPath = path;
+        seekPathPartial = false;
+        watchPath(client);
+        seekPathIndex = nearest;
+        currentWaypoint = path.get(nearest);
+        stuckTicks = 0;
+    }
+
+    /** Appends the next stretch to the partial path still being walked. */
+    private static void extendPath(MinecraftClient client, PathFinder.PathResult result) {
+        seekPathPartial = false;
+        if (result == null || result.path().isEmpty()) return; // walk to the end, then replan
+        List<BlockPos> extended = new ArrayList<>(seekPath);
+        List<BlockPos> next = result.path();
+        // The next stretch starts where this one ends
+        int from = next.get(0).equals(extended.get(extended.size() - 1)) ? 1 : 0;
+        extended.addAll(next.subList(from, next.size()));
+        seekPath = extended;
+        watchPath(client);
+        seekPathPartial = result.partial();
+        if (seekPathPartial) requestContinuation(client);
+    }
+
+    /** Replaces the path being followed. */
+    private static void applyPath(MinecraftClient client, PathFinder.PathResult result) {
+        seekPath = result != null ? result.path() : null;
+        seekPathPartial = result != null && result.partial();
+        watchPath(client);
         if (seekPath != null && !seekPath.isEmpty()) {
             seekPathIndex = 0;
             currentWaypoint = seekPath.get(0);
@@ -2064,17 +2259,60 @@ public class SolarHelperClient implements ClientModInitializer {
                     currentWaypoint = seekPath.get(1);
                 }
             }
+            if (seekPathPartial) requestContinuation(client);
         } else {
             // No path found — will beeline (fallback)
             seekPath = null;
+            seekPathPartial = false;
             currentWaypoint = null;
         }
-        pathRecalcCooldown = 40; // don't recalc for 2 seconds
     }
 
-    /** Recalculates path when stuck. */
+    /** Cancels the background path search, if one is in flight. */
+    private static void cancelPendingPath() {
+        PathPlanner.cancel();
+        pendingPath = null;
+        pendingPathTarget = null;
+        pendingIsContinuation = false;
+    }
+
+    /** Hands the path now being followed to PathMonitor. */
+    private static void watchPath(MinecraftClient client) {
+        PathMonitor.watch(seekPath, plansFlight(client));
+    }
+
+    /**
+     * Whether to plan a flight route: only while the player is already flying. On the
+     * ground paths are walked (PathFollower), and walking a flight leg across a gap or the
+     * void would take the player off the edge.
+     */
+    private static boolean plansFlight(MinecraftClient client) {
+        return client.player.getAbilities().flying;
+    }
+
+    /**
+     * Replans right away when PathMonitor reports that a block change broke the path ahead.
+     * The planner updates its search tree for this head around the changed blocks.
+     */
+    private static void repairPath(MinecraftClient client) {
+        if (client.player == null || client.world == null || headSeekTarget == null) return;
+        boolean canFly = plansFlight(client);
+        pendingPath = PathPlanner.repair(client.world, client.player.getBlockPos(), headSeekTarget, canFly, 1.5);
+        pendingPathTarget = headSeekTarget;
+        pendingIsContinuation = false;
+        stuckTicks = 0;
+    }
+
+    /**
+     * Recalculates path when stuck. The planner repairs its search tree for this head
+     * around the step we're stuck on rather than searching from scratch.
+     */
     private static void recalculatePath(MinecraftClient client) {
-        computePathToTarget(client);
+        if (client.player == null || client.world == null || headSeekTarget == null) return;
+        boolean canFly = plansFlight(client);
+        pendingPath = PathPlanner.replan(client.world, client.player.getBlockPos(), headSeekTarget, canFly, 1.5);
+        pendingPathTarget = headSeekTarget;
+        pendingIsContinuation = false;
         pathRecalcCooldown = 60; // longer cooldown after recalc
     }
 
@@ -2128,28 +2366,51 @@ public class SolarHelperClient implements ClientModInitializer {
             headSeekTarget = null;
             return;
         }
-        double playerX = client.player.getX();
-        double playerY = client.player.getY();
-        double playerZ = client.player.getZ();
-        BlockPos nearest = null;
-        double nearestDist = Double.MAX_VALUE;
-        for (BlockPos pos : heads) {
-            double ddx = pos.getX() + 0.5 - playerX;
-            double ddy = pos.getY() + 0.5 - playerY;
-            double ddz = pos.getZ() + 0.5 - playerZ;
-            double dist = ddx * ddx + ddy * ddy + ddz * ddz;
-            if (dist < nearestDist) {
-                nearestDist = dist;
-                nearest = pos;
+        // Follow the planned tour; until it's ready, take the nearest head. Heads the index
+        // rules out come last: its move model has no ladders or swimming, so the seeker
+        // still heads for them (beelining if no path turns up) once nothing else is left
+        boolean reachableOnly = anyReachable(client, heads);
+        Predicate<BlockPos> accept = pos -> !reachableOnly || isHeadReachable(client, pos);
+        BlockPos next = HeadRoutePlanner.next(heads, accept);
+        if (next == null) {
+            double playerX = client.player.getX();
+            double playerY = client.player.getY();
+            double playerZ = client.player.getZ();
+            double nearestDist = Double.MAX_VALUE;
+            for (BlockPos pos : heads) {
+                if (!accept.test(pos)) continue;
+                double ddx = pos.getX() + 0.5 - playerX;
+                double ddy = pos.getY() + 0.5 - playerY;
+                double ddz = pos.getZ() + 0.5 - playerZ;
+                double dist = ddx * ddx + ddy * ddy + ddz * ddz;
+                if (dist < nearestDist) {
+                    nearestDist = dist;
+                    next = pos;
+                }
             }
         }
-        headSeekTarget = nearest;
+        cancelPendingPath();
+        headSeekTarget = next;
         seekPath = null;
         currentWaypoint = null;
         seekPathIndex = 0;
         headSeekState = HeadSeekState.IDLE;
     }
 
+    /** Whether the reachability index leaves any of heads walkable from here. */
+    private static boolean anyReachable(MinecraftClient client, Set<BlockPos> heads) {
+        for (BlockPos head : heads) {
+            if (isHeadReachable(client, head)) return true;
+        }
+        return false;
+    }
+
+    /** False if the reachability index shows the head can't be walked to from here. */
+    private static boolean isHeadReachable(MinecraftClient client, BlockPos head) {
+        if (client.player.getAbilities().allowFlying) return true;
+        return ReachabilityIndex.isReachable(client.player.getBlockPos(), head);
+    }
+
     /** Returns the fly double-tap tick countdown (>= 0 means actively double-tapping). */
     public static int getFlyDoubleTapTick() {
         return flyDoubleTapTick;
@@ -2160,6 +2421,36 @@ public class SolarHelperClient implements ClientModInitializer {
         return seekJumping;
     }
 
+    /** While flying along a path: +1 to climb, -1 to descend, 0 to hold height. */
+    public static int getSeekVertical() {
+        return seekVertical;
+    }
+
+    /** Whether PathFollower is steering this frame; its keys replace the plain walk-forward input. */
+    public static boolean isFollowingPath() {
+        return PathFollower.isActive();
+    }
+
+    /** PathFollower's forward key: +1 forward, -1 back, 0 neither. */
+    public static int getFollowForward() {
+        return PathFollower.forward();
+    }
+
+    /** PathFollower's strafe key: +1 left, -1 right, 0 neither. */
+    public static int getFollowSideways() {
+        return PathFollower.sideways();
+    }
+
+    /** Whether PathFollower wants to sprint (off while braking for a corner). */
+    public static boolean isFollowSprinting() {
+        return PathFollower.sprint();
+    }
+
+    /** Whether PathFollower is jumping up a step on the path. */
+    public static boolean isFollowJumping() {
+        return PathFollower.jump();
+    }
+
     /** Whether we currently have a path waypoint to follow. */
     public static BlockPos getCurrentWaypoint() {
         return currentWaypoint;
@@ -2176,9 +2467,13 @@ public class SolarHelperClient implements ClientModInitializer {
         flyDoubleTapTick = -1;
         stuckTicks = 0;
         seekJumping = false;
+        seekVertical = 0;
         seekPath = null;
         currentWaypoint = null;
         seekPathIndex = 0;
+        PathFollower.stop();
+        cancelPendingPath();
+        HeadRoutePlanner.reset();
         MinecraftClient client = MinecraftClient.getInstance();
         if (client.options != null) {
             client.options.useKey.setPressed(false);
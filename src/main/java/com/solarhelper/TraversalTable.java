@@ -0,0 +1,139 @@
+package com.solarhelper;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.registry.tag.BlockTags;
+import net.minecraft.registry.tag.FluidTags;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.shape.VoxelShape;
+import net.minecraft.world.EmptyBlockView;
+
+/**
+ * How a player gets through each block state, indexed by raw block-state id.
+ *
+ * Built once per world join (block tags come from the server, so they are only final
+ * then) from each state's collision shape, fluid and block type. Building the passability
+ * masks is then one id lookup and an array read per block instead of shape queries.
+ *
+ * Per state:
+ *  - kind: OPEN (walk through), SOLID (blocks the body, ground to stand on), HAZARD (lava
+ *    and fire: kept out of like a wall, but never ground) or BARRIER (fences and walls:
+ *    blocks the body, but reaches above a full block, so its top is out of a jump's reach
+ *    and isn't ground either).
+ *  - penalty: extra move cost in tenths of a block. It counts for the body's blocks if the
+ *    state is walked through (water, cobwebs), or for the block underfoot if it is stood on
+ *    (soul sand, honey).
+ *
+ * The arrays are replaced as a whole on rebuild and never modified afterwards, so
+ * background searches can read them without locking.
+ */
+final class TraversalTable {
+
+    static final byte OPEN = 0, SOLID = 1, HAZARD = 2, BARRIER = 3;
+
+    // Collision no higher than this (carpets, closed trapdoors, low snow) is walked over like air
+    private static final double FLOOR_MAX = 3.0 / 16.0;
+
+    private static final int WATER_PENALTY = 10;
+    private static final int SOUL_SAND_PENALTY = 15;
+    private static final int HONEY_PENALTY = 20;
+    private static final int BERRY_BUSH_PENALTY = 30;
+    private static final int POWDER_SNOW_PENALTY = 30;
+    private static final int MAGMA_PENALTY = 40;
+    private static final int COBWEB_PENALTY = 80;
+
+    private record Entries(byte[] kind, byte[] penalty) {}
+
+    private static volatile Entries table = null;
+
+    private TraversalTable() {}
+
+    /** Rebuilds the table from the current block-state registry and tags. Called on world join. */
+    static void build() {
+        int size = Block.STATE_IDS.size();
+        byte[] kind = new byte[size];
+        byte[] penalty = new byte[size];
+        for (BlockState state : Block.STATE_IDS) {
+            int id = Block.getRawIdFromState(state);
+            VoxelShape shape = state.getCollisionShape(EmptyBlockView.INSTANCE, BlockPos.ORIGIN);
+            double top = shape.isEmpty() ? 0 : shape.getMax(Direction.Axis.Y);
+            kind[id] = classify(state, shape, top);
+            penalty[id] = (byte) penalty(state, kind[id]);
+        }
+        table = new Entries(kind, penalty);
+    }
+
+    private static byte classify(BlockState state, VoxelShape shape, double top) {
+        // Never path into something that burns, nor onto it
+        if (state.getFluidState().isIn(FluidTags.LAVA) || state.isIn(BlockTags.FIRE)) return HAZARD;
+        if (blocksCentre(shape)) return top > 1.0 ? BARRIER : SOLID;
+        return OPEN;
+    }
+
+    /**
+     * Whether part of the shape above floor height stands in the middle of the block. Thin
+     * blocks along an edge (doors, ladders, open trapdoors) leave room to walk through;
+     * anything with a post or body in the middle (fences, panes, slabs, stairs) doesn't.
+     */
+    private static boolean blocksCentre(VoxelShape shape) {
+        for (Box box : shape.getBoundingBoxes()) {
+            if (box.maxY > FLOOR_MAX && box.minX <= 0.5 && box.maxX >= 0.5 && box.minZ <= 0.5 && box.maxZ >= 0.5) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int penalty(BlockState state, byte kind) {
+        if (kind == SOLID) {
+            if (state.isOf(Blocks.SOUL_SAND)) return SOUL_SAND_PENALTY;
+            if (state.isOf(Blocks.HONEY_BLOCK)) return HONEY_PENALTY;
+            if (state.isOf(Blocks.MAGMA_BLOCK)) return MAGMA_PENALTY;
+            return 0;
+        }
+        if (kind != OPEN) return 0;
+        if (state.isOf(Blocks.COBWEB)) return COBWEB_PENALTY;
+        if (state.isOf(Blocks.POWDER_SNOW)) return POWDER_SNOW_PENALTY;
+        if (state.isOf(Blocks.SWEET_BERRY_BUSH)) return BERRY_BUSH_PENALTY;
+        if (state.getFluidState().isIn(FluidTags.WATER)) return WATER_PENALTY;
+        return 0;
+    }
+
+    private static Entries entries() {
+        Entries t = table;
+        if (t == null) {
+            build();
+            t = table;
+        }
+        return t;
+    }
+
+    /** Raw id of a state, for the lookups below. */
+    static int id(BlockState state) {
+        return Block.getRawIdFromState(state);
+    }
+
+    static byte kind(int id) {
+        byte[] kind = entries().kind();
+        return id < kind.length ? kind[id] : SOLID;
+    }
+
+    /** Whether the state blocks the player's body (anything but OPEN). */
+    static boolean isSolid(int id) {
+        return kind(id) != OPEN;
+    }
+
+    /** Whether the state is ground a player can stand on (SOLID only). */
+    static boolean isGround(int id) {
+        return kind(id) == SOLID;
+    }
+
+    /** Extra move cost of this state in tenths of a block (see class doc for where it counts). */
+    static int penalty(int id) {
+        byte[] penalty = entries().penalty();
+        return id < penalty.length ? penalty[id] & 0xFF : 0;
+    }
+}
@@ -49,9 +49,29 @@ public abstract class KeyboardInputMixin extends Input {
             MinecraftClient client = MinecraftClient.getInstance();
             SolarHelperClient.HeadSeekState state = SolarHelperClient.getHeadSeekState();
             boolean jumping = SolarHelperClient.isSeekJumping() || SolarHelperClient.getFlyDoubleTapTick() >= 0;
+            int vertical = SolarHelperClient.getSeekVertical();
 
             switch (state) {
                 case MOVING -> {
+                    if (SolarHelperClient.isFollowingPath()) {
+                        // Walking a path: PathFollower chose the keys from our velocity and yaw
+                        int fwd = SolarHelperClient.getFollowForward();
+                        int sw  = SolarHelperClient.getFollowSideways();
+                        this.playerInput = new PlayerInput(
+                            fwd > 0,   // forward
+                            fwd < 0,   // backward
+                            sw  > 0,   // left
+                            sw  < 0,   // right
+                            SolarHelperClient.isFollowJumping() || jumping, // step up, or stuck
+                            false,     // sneak
+                            SolarHelperClient.isFollowSprinting()
+                        );
+                        this.movementVector = new Vec2f(sw != 0 ? (float) sw : 0.0f, fwd != 0 ? (float) fwd : 0.0f);
+                        if (client.options != null) {
+                            client.options.useKey.setPressed(false);
+                        }
+                        return;
+                    }
                     // Walk forward toward whatever we're looking at (waypoint or head).
                     // The look direction is set by tickHeadSeek, so forward = toward waypoint.
                     this.playerInput = new PlayerInput(
@@ -59,8 +79,8 @@ public abstract class KeyboardInputMixin extends Input {
                         false,  // backward
                         false,  // left
                         false,  // right
-                        jumping, // jump (obstacles or fly toggle)
-                        false,  // sneak
+                        jumping || vertical > 0, // jump (obstacles, fly toggle, or climbing in flight)
+                        vertical < 0,            // sneak (descending in flight)
                         true    // sprint
                     );
                     this.movementVector = new Vec2f(0.0f, 1.0f);
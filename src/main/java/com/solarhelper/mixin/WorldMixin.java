@@ -0,0 +1,23 @@
+package com.solarhelper.mixin;
+
+import com.solarhelper.SolarHelperClient;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(World.class)
+public abstract class WorldMixin {
+    // Catches server block updates, chunk delta updates and client-side placement predictions alike
+    @Inject(method = "setBlockState(Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/BlockState;II)Z", at = @At("RETURN"))
+    private void onSetBlockState(BlockPos pos, BlockState state, int flags, int maxUpdateDepth,
+                                 CallbackInfoReturnable<Boolean> cir) {
+        if (cir.getReturnValue() && (Object) this instanceof ClientWorld clientWorld) {
+            SolarHelperClient.onClientBlockChanged(clientWorld, pos);
+        }
+    }
+}